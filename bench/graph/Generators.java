@@ -0,0 +1,42 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/** Random graphs for the graph package benchmarks.
+ *  @author Felix Liu
+ */
+final class Generators {
+
+    /** Returns a directed graph with SIZE vertices labeled 0 .. SIZE-1
+     *  and DEGREE * SIZE edges with random ends and integer labels,
+     *  chosen with SEED.  Every vertex i > 0 also has an edge from some
+     *  vertex before it, so everything is reachable from vertex 0. */
+    static DirectedGraph<Integer, Integer> random(int size, int degree,
+                                                  long seed) {
+        Random rand = new Random(seed);
+        DirectedGraph<Integer, Integer> g
+            = new DirectedGraph<Integer, Integer>();
+        ArrayList<Graph<Integer, Integer>.Vertex> vertices
+            = new ArrayList<Graph<Integer, Integer>.Vertex>(size);
+        for (int i = 0; i < size; i += 1) {
+            vertices.add(g.add(i));
+        }
+        for (int i = 1; i < size; i += 1) {
+            g.add(vertices.get(rand.nextInt(i)), vertices.get(i),
+                  1 + rand.nextInt(100));
+        }
+        for (int k = size - 1; k < degree * size; k += 1) {
+            g.add(vertices.get(rand.nextInt(size)),
+                  vertices.get(rand.nextInt(size)), 1 + rand.nextInt(100));
+        }
+        return g;
+    }
+
+    /** Returns the first vertex of G. */
+    static <VLabel, ELabel> Graph<VLabel, ELabel>.Vertex
+    first(Graph<VLabel, ELabel> g) {
+        return g.vertices().next();
+    }
+
+}
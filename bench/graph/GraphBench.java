@@ -0,0 +1,102 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks building and dismantling graphs with Graph.add and
+ *  Graph.remove.
+ *  @author Felix Liu
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class GraphBench {
+
+    /** Number of vertices added. */
+    @Param({ "1000", "10000", "100000" })
+    private int size;
+
+    /** A fresh graph, and its vertices and edges in random order, for
+     *  each removal benchmark call.  Only the removal benchmarks use
+     *  me, so that add is not slowed by rebuilding a graph it never
+     *  looks at. */
+    @State(Scope.Thread)
+    public static class Removal {
+
+        /** Number of vertices. */
+        @Param({ "1000", "10000" })
+        private int removeSize;
+
+        /** Builds and shuffles the graph. */
+        @Setup(Level.Invocation)
+        public void setup() {
+            graph = Generators.random(removeSize, DEGREE, SEED);
+            vertices = new ArrayList<Graph<Integer, Integer>.Vertex>();
+            for (Graph<Integer, Integer>.Vertex v : graph.vertices()) {
+                vertices.add(v);
+            }
+            edges = new ArrayList<Graph<Integer, Integer>.Edge>();
+            for (Graph<Integer, Integer>.Edge e : graph.edges()) {
+                edges.add(e);
+            }
+            Random rand = new Random(SEED);
+            Collections.shuffle(vertices, rand);
+            Collections.shuffle(edges, rand);
+        }
+
+        /** The graph being dismantled. */
+        private DirectedGraph<Integer, Integer> graph;
+        /** Vertices of graph, shuffled. */
+        private ArrayList<Graph<Integer, Integer>.Vertex> vertices;
+        /** Edges of graph, shuffled. */
+        private ArrayList<Graph<Integer, Integer>.Edge> edges;
+    }
+
+    /** Adds SIZE vertices and DEGREE * SIZE edges to an empty graph. */
+    @Benchmark
+    public Graph<Integer, Integer> add() {
+        return Generators.random(size, DEGREE, SEED);
+    }
+
+    /** Removes every edge of the graph in STATE, one at a time. */
+    @Benchmark
+    public Graph<Integer, Integer> removeEdges(Removal state) {
+        for (Graph<Integer, Integer>.Edge e : state.edges) {
+            state.graph.remove(e);
+        }
+        return state.graph;
+    }
+
+    /** Removes every vertex of the graph in STATE, and so its incident
+     *  edges. */
+    @Benchmark
+    public Graph<Integer, Integer> removeVertices(Removal state) {
+        for (Graph<Integer, Integer>.Vertex v : state.vertices) {
+            state.graph.remove(v);
+        }
+        return state.graph;
+    }
+
+    /** Average out-degree of the generated graphs. */
+    private static final int DEGREE = 3;
+    /** Seed for graph generation. */
+    private static final long SEED = 61;
+
+}
@@ -0,0 +1,86 @@
+package graph;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Benchmarks Traversal.depthFirstTraverse and
+ *  Traversal.breadthFirstTraverse over random graphs in which every
+ *  vertex is reachable from the start.
+ *  @author Felix Liu
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class TraversalBench {
+
+    /** Number of vertices. */
+    @Param({ "1000", "10000" })
+    private int size;
+
+    /** A traversal that hands every vertex it visits to a Blackhole,
+     *  so the work cannot be optimized away. */
+    static class Counting extends Traversal<Integer, Integer> {
+        /** A traversal reporting to SINK. */
+        Counting(Blackhole sink) {
+            _sink = sink;
+        }
+
+        @Override
+        protected void visit(Graph<Integer, Integer>.Vertex v) {
+            _sink.consume(v);
+        }
+
+        @Override
+        protected void postVisit(Graph<Integer, Integer>.Vertex v) {
+            _sink.consume(v);
+        }
+
+        /** Where visited vertices go. */
+        private final Blackhole _sink;
+    }
+
+    /** Builds the graph. */
+    @Setup(Level.Trial)
+    public void setup() {
+        graph = Generators.random(size, DEGREE, SEED);
+        start = Generators.first(graph);
+    }
+
+    /** A depth-first traversal of the whole graph. */
+    @Benchmark
+    public void depthFirst(Blackhole sink) {
+        new Counting(sink).depthFirstTraverse(graph, start);
+    }
+
+    /** A breadth-first traversal of the whole graph. */
+    @Benchmark
+    public void breadthFirst(Blackhole sink) {
+        new Counting(sink).breadthFirstTraverse(graph, start);
+    }
+
+    /** Average out-degree of the generated graphs. */
+    private static final int DEGREE = 3;
+    /** Seed for graph generation. */
+    private static final long SEED = 61;
+
+    /** The graph to traverse. */
+    private DirectedGraph<Integer, Integer> graph;
+    /** Where traversals start. */
+    private Graph<Integer, Integer>.Vertex start;
+
+}
@@ -0,0 +1,100 @@
+package make;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks make.Main end to end (reading the makefile and file
+ *  information, building the graph, checking for cycles and printing
+ *  the commands) on generated makefiles.  Printed commands are
+ *  discarded.
+ *  @author Felix Liu
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class MakeBench {
+
+    /** Shape of the dependency graph; see MakefileGenerator. */
+    @Param({ "tree", "layered" })
+    private String shape;
+
+    /** Number of targets. */
+    @Param({ "1000", "10000", "100000", "1000000" })
+    private int size;
+
+    /** Writes the makefile and silences standard output. */
+    @Setup
+    public void setup() throws IOException {
+        makefile = File.createTempFile("bench", ".mk");
+        fileinfo = File.createTempFile("bench", ".info");
+        MakefileGenerator.write(shape, size, SEED, makefile.getPath(),
+                                fileinfo.getPath());
+        stdout = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        }));
+    }
+
+    /** Restores standard output and removes the generated files. */
+    @TearDown
+    public void tearDown() {
+        System.setOut(stdout);
+        makefile.delete();
+        fileinfo.delete();
+    }
+
+    /** One complete run of make all. */
+    @Benchmark
+    public void makeAll() {
+        Main.reset();
+        Main.main("-f", makefile.getPath(), "-D", fileinfo.getPath(),
+                  "all");
+    }
+
+    /** One complete run of make all on JOBS workers, printing in the
+     *  sequential order. */
+    @Benchmark
+    public void makeAllParallel() {
+        Main.reset();
+        Main.main("-f", makefile.getPath(), "-D", fileinfo.getPath(),
+                  "-j", Integer.toString(JOBS), "-O", "all");
+    }
+
+    /** Number of workers for makeAllParallel. */
+    private static final int JOBS = 4;
+
+    /** Seed for makefile generation. */
+    private static final long SEED = 61;
+
+    /** The generated makefile. */
+    private File makefile;
+    /** The generated file information. */
+    private File fileinfo;
+    /** Standard output before setup. */
+    private PrintStream stdout;
+
+}
@@ -0,0 +1,71 @@
+package make;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Random;
+
+/** Writes synthetic makefiles and file-information files for
+ *  benchmarking.  Targets are named t0, t1, ..., every target has a
+ *  rule with one command, and a rule for "all" depends on the roots,
+ *  so "make all" walks the whole graph.
+ *  @author Felix Liu
+ */
+final class MakefileGenerator {
+
+    /** Writes a makefile with SIZE targets to MAKEFILE, and matching
+     *  file information to FILEINFO, using SEED.  SHAPE is "tree" for
+     *  a binary tree of prerequisites (no target is shared), or
+     *  "layered" for LAYERS layers in which each target depends on two
+     *  random targets of the next layer (so targets are shared along
+     *  many paths).  About a third of the targets have no recorded
+     *  time, and the rest have random times, so some fraction of the
+     *  graph is out of date. */
+    static void write(String shape, int size, long seed,
+                      String makefile, String fileinfo) throws IOException {
+        Random rand = new Random(seed);
+        try (PrintWriter mk = new PrintWriter(new FileWriter(makefile));
+             PrintWriter info = new PrintWriter(new FileWriter(fileinfo))) {
+            int width = Math.max(1, size / LAYERS);
+            StringBuilder roots = new StringBuilder("all:");
+            int rootCount = shape.equals("tree") ? 1 : Math.min(width, size);
+            for (int i = 0; i < rootCount; i += 1) {
+                roots.append(" t").append(i);
+            }
+            mk.println(roots);
+            mk.println("\techo all");
+            for (int i = 0; i < size; i += 1) {
+                StringBuilder line = new StringBuilder();
+                line.append('t').append(i).append(':');
+                if (shape.equals("tree")) {
+                    for (int c = 2 * i + 1; c <= 2 * i + 2 && c < size;
+                         c += 1) {
+                        line.append(" t").append(c);
+                    }
+                } else if (shape.equals("layered")) {
+                    int next = (i / width + 1) * width;
+                    if (next < size) {
+                        int span = Math.min(width, size - next);
+                        line.append(" t").append(next + rand.nextInt(span));
+                        line.append(" t").append(next + rand.nextInt(span));
+                    }
+                } else {
+                    throw new IllegalArgumentException("unknown shape "
+                                                       + shape);
+                }
+                mk.println(line);
+                mk.println("\tbuild t" + i);
+            }
+            info.println(size + 1);
+            for (int i = 0; i < size; i += 1) {
+                if (rand.nextInt(3) != 0) {
+                    info.println("t" + i + " " + rand.nextInt(size));
+                }
+            }
+        }
+    }
+
+    /** Number of layers in a layered makefile. */
+    static final int LAYERS = 8;
+
+}
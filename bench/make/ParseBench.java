@@ -0,0 +1,73 @@
+package make;
+
+import graph.DirectedGraph;
+import graph.Graph;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks reading a generated makefile held in memory and building
+ *  its graph with MakefileParser.
+ *  @author Felix Liu
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ParseBench {
+
+    /** Shape of the dependency graph; see MakefileGenerator. */
+    @Param({ "tree", "layered" })
+    private String shape;
+
+    /** Number of targets. */
+    @Param({ "10000", "100000" })
+    private int size;
+
+    /** Generates the makefile's contents. */
+    @Setup
+    public void setup() throws IOException {
+        File mk = File.createTempFile("ParseBench", ".mk");
+        File info = File.createTempFile("ParseBench", ".info");
+        MakefileGenerator.write(shape, size, SEED, mk.getPath(),
+                                info.getPath());
+        makefile = Files.readAllBytes(mk.toPath());
+        mk.delete();
+        info.delete();
+    }
+
+    /** Reads the makefile with MakefileParser. */
+    @Benchmark
+    public Graph<String, String> parser() throws IOException {
+        DirectedGraph<String, String> g = new DirectedGraph<String, String>();
+        new MakefileParser(new ByteArrayInputStream(makefile))
+            .load(g, new HashMap<String, Graph<String, String>.Vertex>(),
+                  new HashMap<String, ArrayList<String>>(),
+                  new HashMap<String, ArrayList<String>>());
+        return g;
+    }
+
+    /** Seed for makefile generation. */
+    private static final long SEED = 61;
+
+    /** The makefile's contents. */
+    private byte[] makefile;
+
+}
@@ -0,0 +1,97 @@
+package trip;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks loading a generated map held in memory, with MapLoader
+ *  and with the Scanner and processVert/processEdge loop that trip used
+ *  before it, and loading its compiled form from a file.
+ *  @author Felix Liu
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class LoadBench {
+
+    /** Approximate number of locations in the map. */
+    @Param({ "10000", "1000000" })
+    private int size;
+
+    /** Generates the map file's contents, and compiles them. */
+    @Setup
+    public void setup() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (String line : MapGenerator.generate("roads", size, SEED)) {
+            text.append(line).append('\n');
+        }
+        map = text.toString().getBytes(Charset.defaultCharset());
+        BinaryMap compiled = new BinaryMap();
+        new MapLoader(new ByteArrayInputStream(map), compiled).load();
+        binary = File.createTempFile("LoadBench", ".map");
+        binary.deleteOnExit();
+        FileOutputStream out = new FileOutputStream(binary);
+        compiled.write(out);
+        out.close();
+    }
+
+    /** Loads the compiled map, along with the CompactGraph that the
+     *  other loaders leave trip to build afterward. */
+    @Benchmark
+    public void binaryMap() throws IOException {
+        Main.clearMap();
+        Main.addMap(BinaryMap.load(binary));
+    }
+
+    /** Loads the map with MapLoader. */
+    @Benchmark
+    public void mapLoader() throws IOException {
+        Main.clearMap();
+        new MapLoader(new ByteArrayInputStream(map)).load();
+    }
+
+    /** Loads the map a line at a time with Scanner. */
+    @Benchmark
+    public void scanner() {
+        Main.clearMap();
+        Scanner sc = new Scanner(new ByteArrayInputStream(map));
+        while (sc.hasNextLine()) {
+            String line = sc.nextLine();
+            if (line.isEmpty()) {
+                continue;
+            } else if (line.charAt(0) == 'L') {
+                Main.processVert(line);
+            } else {
+                Main.processEdge(line);
+            }
+        }
+        sc.close();
+    }
+
+    /** Seed for map generation. */
+    private static final long SEED = 61;
+
+    /** The map file's contents. */
+    private byte[] map;
+    /** The compiled map. */
+    private File binary;
+
+}
@@ -0,0 +1,124 @@
+package trip;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/** Generates synthetic maps in the L/R format read by trip.Main, for
+ *  benchmarking.  Every road is at least as long as the straight line
+ *  between its ends, so Main.CROWFLYER stays admissible.
+ *  @author Felix Liu
+ */
+final class MapGenerator {
+
+    /** Returns the lines of a map of about SIZE locations in the given
+     *  SHAPE ("grid" or "roads"), generated from SEED. */
+    static List<String> generate(String shape, int size, long seed) {
+        switch (shape) {
+        case "grid":
+            return grid(size, seed);
+        case "roads":
+            return roads(size, seed);
+        default:
+            throw new IllegalArgumentException("unknown map shape " + shape);
+        }
+    }
+
+    /** Returns a square grid of about SIZE locations laid out like
+     *  trip-tests/map01: each row is one east-west road and each column
+     *  one north-south road.  SEED perturbs road lengths. */
+    static List<String> grid(int size, long seed) {
+        Random rand = new Random(seed);
+        int side = Math.max(2, (int) Math.sqrt(size));
+        ArrayList<String> lines = new ArrayList<String>();
+        for (int y = 0; y < side; y += 1) {
+            for (int x = 0; x < side; x += 1) {
+                lines.add(String.format(Locale.US, "L P%d_%d %.2f %.2f",
+                                        x, y, SPACING * x, SPACING * y));
+            }
+        }
+        for (int y = 0; y < side; y += 1) {
+            for (int x = 0; x < side; x += 1) {
+                if (x + 1 < side) {
+                    lines.add(road("P" + x + "_" + y, "US" + (2 * y),
+                                   SPACING * (1 + rand.nextDouble() / 2),
+                                   "WE", "P" + (x + 1) + "_" + y));
+                }
+                if (y + 1 < side) {
+                    lines.add(road("P" + x + "_" + y, "US" + (2 * x + 1),
+                                   SPACING * (1 + rand.nextDouble() / 2),
+                                   "SN", "P" + x + "_" + (y + 1)));
+                }
+            }
+        }
+        return lines;
+    }
+
+    /** Returns a road-like network of about SIZE locations: locations
+     *  are jittered off a grid, about a tenth of the grid links are
+     *  missing so that routes must detour, and some locations have
+     *  diagonal shortcuts.  SEED determines everything. */
+    static List<String> roads(int size, long seed) {
+        Random rand = new Random(seed);
+        int side = Math.max(2, (int) Math.sqrt(size));
+        double[][] xs = new double[side][side];
+        double[][] ys = new double[side][side];
+        ArrayList<String> lines = new ArrayList<String>();
+        for (int y = 0; y < side; y += 1) {
+            for (int x = 0; x < side; x += 1) {
+                xs[x][y] = SPACING * (x + rand.nextDouble() * 0.6 - 0.3);
+                ys[x][y] = SPACING * (y + rand.nextDouble() * 0.6 - 0.3);
+                lines.add(String.format(Locale.US, "L R%d_%d %.4f %.4f",
+                                        x, y, xs[x][y], ys[x][y]));
+            }
+        }
+        for (int y = 0; y < side; y += 1) {
+            for (int x = 0; x < side; x += 1) {
+                if (x + 1 < side && rand.nextInt(10) != 0) {
+                    lines.add(link(xs, ys, x, y, x + 1, y, "I" + y, rand));
+                }
+                if (y + 1 < side && rand.nextInt(10) != 0) {
+                    lines.add(link(xs, ys, x, y, x, y + 1, "CA" + x, rand));
+                }
+                if (x + 1 < side && y + 1 < side && rand.nextInt(8) == 0) {
+                    lines.add(link(xs, ys, x, y, x + 1, y + 1,
+                                   "SR" + (x + y), rand));
+                }
+            }
+        }
+        return lines;
+    }
+
+    /** Returns the road named NAME from location (X0, Y0) to (X1, Y1)
+     *  of the jittered grid with coordinates XS and YS.  Its length is
+     *  the straight-line distance stretched by a random factor from
+     *  RAND. */
+    private static String link(double[][] xs, double[][] ys, int x0, int y0,
+                               int x1, int y1, String name, Random rand) {
+        double dx = xs[x1][y1] - xs[x0][y0];
+        double dy = ys[x1][y1] - ys[x0][y0];
+        double length = Math.sqrt(dx * dx + dy * dy)
+            * (1.05 + rand.nextDouble() / 4);
+        String dir;
+        if (Math.abs(dx) >= Math.abs(dy)) {
+            dir = dx >= 0 ? "WE" : "EW";
+        } else {
+            dir = dy >= 0 ? "SN" : "NS";
+        }
+        return road("R" + x0 + "_" + y0, name, length, dir,
+                    "R" + x1 + "_" + y1);
+    }
+
+    /** Returns an R line for the road NAME of the given LENGTH running
+     *  in direction DIR from FROM to TO. */
+    private static String road(String from, String name, double length,
+                               String dir, String to) {
+        return String.format(Locale.US, "R %s %s %.4f %s %s", from, name,
+                             length, dir, to);
+    }
+
+    /** Distance between neighboring grid locations, as in map01. */
+    private static final double SPACING = 2.75;
+
+}
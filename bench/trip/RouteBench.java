@@ -0,0 +1,204 @@
+package trip;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import graph.CompactGraph;
+import graph.ContractionHierarchy;
+import graph.DirectedGraph;
+import graph.Graph;
+import graph.Graphs;
+import graph.Landmarks;
+import graph.RouteExecutor;
+import graph.SearchContext;
+
+/** Benchmarks point-to-point routing with Graphs.shortestPath and
+ *  ContractionHierarchy on generated maps, loaded through
+ *  Main.processVert and Main.processEdge exactly as trip loads a map
+ *  file.  Each map size runs in its own forked JVM, so Main's static
+ *  map is built once per fork.
+ *  @author Felix Liu
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class RouteBench {
+
+    /** Shape of the generated map. */
+    @Param({ "grid", "roads" })
+    private String shape;
+
+    /** Approximate number of locations in the map. */
+    @Param({ "1000", "10000", "100000" })
+    private int size;
+
+    /** Loads the map and picks the queries. */
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() throws ReflectiveOperationException {
+        for (String line : MapGenerator.generate(shape, size, SEED)) {
+            if (line.charAt(0) == 'L') {
+                Main.processVert(line);
+            } else {
+                Main.processEdge(line);
+            }
+        }
+        Field field = Main.class.getDeclaredField("world");
+        field.setAccessible(true);
+        world = (DirectedGraph<Location, Road>) field.get(null);
+        compact = new CompactGraph<Location, Road>(world, Main.EDGE);
+        hierarchy = new ContractionHierarchy<Location, Road>(compact);
+        landmarks = new Landmarks<Location>(compact, LANDMARKS,
+                                          Landmarks.Strategy.AVOID);
+
+        vertices = new ArrayList<Graph<Location, Road>.Vertex>();
+        for (Graph<Location, Road>.Vertex v : world.vertices()) {
+            vertices.add(v);
+        }
+        Random rand = new Random(SEED);
+        from = new int[QUERIES];
+        to = new int[QUERIES];
+        for (int i = 0; i < QUERIES; i += 1) {
+            from[i] = rand.nextInt(vertices.size());
+            to[i] = rand.nextInt(vertices.size());
+        }
+        executor = new RouteExecutor<Location, Road>(compact, Main.CROWFLYER,
+                                                     THREADS);
+        batchFrom = new int[QUERIES];
+        batchTo = new int[QUERIES];
+        for (int i = 0; i < QUERIES; i += 1) {
+            batchFrom[i] = compact.id(vertices.get(from[i]));
+            batchTo[i] = compact.id(vertices.get(to[i]));
+        }
+    }
+
+    /** Stops the executor's threads. */
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    /** A* over the object graph with trip's own weighters. */
+    @Benchmark
+    public List<Graph<Location, Road>.Edge> shortestPath() {
+        int i = next();
+        return Graphs.shortestPath(world, vertices.get(from[i]),
+                                   vertices.get(to[i]), Main.CROWFLYER,
+                                   Main.EDGE, context);
+    }
+
+    /** A* over the compact copy of the same map. */
+    @Benchmark
+    public List<Graph<Location, Road>.Edge> compactShortestPath() {
+        int i = next();
+        return Graphs.shortestPath(compact,
+                                   compact.id(vertices.get(from[i])),
+                                   compact.id(vertices.get(to[i])),
+                                   Main.CROWFLYER);
+    }
+
+    /** A* over the compact copy, guided by landmarks instead of
+     *  straight-line distance. */
+    @Benchmark
+    public List<Graph<Location, Road>.Edge> landmarkPath() {
+        int i = next();
+        return Graphs.shortestPath(compact,
+                                   compact.id(vertices.get(from[i])),
+                                   compact.id(vertices.get(to[i])),
+                                   landmarks);
+    }
+
+    /** Bidirectional A* over the compact copy of the same map. */
+    @Benchmark
+    public List<Graph<Location, Road>.Edge> bidirectionalPath() {
+        int i = next();
+        return Graphs.bidirectionalPath(compact,
+                                        compact.id(vertices.get(from[i])),
+                                        compact.id(vertices.get(to[i])),
+                                        Main.CROWFLYER);
+    }
+
+    /** Contraction-hierarchy query over the same map, preprocessed
+     *  once in setup. */
+    @Benchmark
+    public List<Graph<Location, Road>.Edge> hierarchyPath() {
+        int i = next();
+        return hierarchy.shortestPath(compact.id(vertices.get(from[i])),
+                                      compact.id(vertices.get(to[i])));
+    }
+
+    /** All the queries at once, as bidirectional A* searches spread
+     *  over THREADS threads by a RouteExecutor.  Each call does QUERIES
+     *  searches. */
+    @Benchmark
+    public List<List<Graph<Location, Road>.Edge>> batchPaths() {
+        return executor.shortestPaths(batchFrom, batchTo);
+    }
+
+    /** A MATRIX x MATRIX distance matrix among the first queries' ends,
+     *  one Dijkstra search per source. */
+    @Benchmark
+    public double[][] distanceMatrix() {
+        return Graphs.distanceMatrix(compact,
+                                     Arrays.copyOf(batchFrom, MATRIX),
+                                     Arrays.copyOf(batchTo, MATRIX));
+    }
+
+    /** Returns the index of the next query to run. */
+    private int next() {
+        query = (query + 1) % QUERIES;
+        return query;
+    }
+
+    /** Seed for map generation and query selection. */
+    private static final long SEED = 61;
+    /** Number of distinct queries cycled through. */
+    private static final int QUERIES = 64;
+    /** Number of landmarks for landmarkPath. */
+    private static final int LANDMARKS = 16;
+    /** Number of sources and of targets for distanceMatrix. */
+    private static final int MATRIX = 16;
+    /** Number of worker threads for batchPaths. */
+    private static final int THREADS = 4;
+
+    /** Main's map. */
+    private DirectedGraph<Location, Road> world;
+    /** Compact copy of world. */
+    private CompactGraph<Location, Road> compact;
+    /** Contraction hierarchy over compact. */
+    private ContractionHierarchy<Location, Road> hierarchy;
+    /** Search state reused by every query. */
+    private SearchContext<Location, Road> context
+        = new SearchContext<Location, Road>();
+    /** Landmark heuristic for compact. */
+    private Landmarks<Location> landmarks;
+    /** The vertices of world, in order. */
+    private ArrayList<Graph<Location, Road>.Vertex> vertices;
+    /** Query start and end indices into vertices. */
+    private int[] from, to;
+    /** Runs batchPaths. */
+    private RouteExecutor<Location, Road> executor;
+    /** The queries as vertex numbers in compact. */
+    private int[] batchFrom, batchTo;
+    /** Index of the last query run. */
+    private int query;
+
+}
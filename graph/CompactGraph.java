@@ -0,0 +1,288 @@
+package graph;
+
+import java.util.HashMap;
+
+/** A frozen, read-only copy of a Graph whose vertices are numbered
+ *  densely from 0 to vertexSize() - 1 and whose edges are kept in
+ *  compressed-sparse-row form: the edges leaving vertex v are the
+ *  indices k with firstOut(v) <= k < endOut(v), and target(k),
+ *  weight(k) and edge(k) describe edge k.  Incoming edges are indexed
+ *  the same way through firstIn, endIn, source and inEdge.  Edge
+ *  weights are computed once, when the copy is made, so searches over
+ *  a CompactGraph read them out of a double[] instead of calling a
+ *  Weighting on every relaxation.  An undirected edge appears once in
+ *  each direction, just as it does in the outEdges of the original.
+ *  Later changes to the original graph are not reflected here.
+ *  VLABEL and ELABEL are the label types of the original.
+ *  @author Felix Liu
+ */
+public final class CompactGraph<VLabel, ELabel> {
+
+    /** A Weighting that reads the weight of Weighted labels. */
+    public static final Weighting<Weighted> LABEL_WEIGHTS =
+        new Weighting<Weighted>() {
+            @Override
+            public double weight(Weighted x) {
+                return x.weight();
+            }
+        };
+
+    /** A Weighting that gives every edge weight 1. */
+    public static final Weighting<Object> UNIT_WEIGHTS =
+        new Weighting<Object>() {
+            @Override
+            public double weight(Object x) {
+                return 1.0;
+            }
+        };
+
+    /** A compact copy of G in which every edge has weight 1. */
+    public CompactGraph(Graph<VLabel, ELabel> G) {
+        this(G, UNIT_WEIGHTS);
+    }
+
+    /** A compact copy of G whose edge weights are given by applying
+     *  EWEIGHTER to the edge labels. */
+    @SuppressWarnings("unchecked")
+    public CompactGraph(Graph<VLabel, ELabel> G,
+                        Weighting<? super ELabel> eweighter) {
+        _directed = G.isDirected();
+        _vertices = vertices(G);
+        _ids = ids(_vertices);
+        int n = _vertices.length;
+
+        _outStart = new int[n + 1];
+        for (int i = 0; i < n; i += 1) {
+            _outStart[i + 1] = _outStart[i] + G.outDegree(_vertices[i]);
+        }
+        int m = _outStart[n];
+        _target = new int[m];
+        _weight = new double[m];
+        _edges = (Graph<VLabel, ELabel>.Edge[]) new Graph.Edge[m];
+        int k = 0;
+        for (int i = 0; i < n; i += 1) {
+            for (Graph<VLabel, ELabel>.Edge e : G.outEdges(_vertices[i])) {
+                _target[k] = _ids.get(e.getV1());
+                _weight[k] = eweighter.weight(e.getLabel());
+                _edges[k] = e;
+                k += 1;
+            }
+        }
+
+        int[][] in = invert(_outStart, _target);
+        _inStart = in[0];
+        _source = in[1];
+        _inEdge = in[2];
+    }
+
+    /** A compact copy of G whose edges are already laid out in OUTSTART,
+     *  TARGET and WEIGHT, as firstOut, target and weight would return
+     *  them, with the vertices numbered in the order G.vertices()
+     *  delivers them and the edges leaving each in the order of
+     *  G.outEdges.  This saves looking up the number of every edge's
+     *  target, as a loader that already has them in that form can.  The
+     *  arrays become mine.  Throws IllegalArgumentException if the
+     *  degrees in OUTSTART are not those of G. */
+    @SuppressWarnings("unchecked")
+    public CompactGraph(Graph<VLabel, ELabel> G, int[] outStart,
+                        int[] target, double[] weight) {
+        _directed = G.isDirected();
+        _vertices = vertices(G);
+        _ids = ids(_vertices);
+        int n = _vertices.length;
+        if (outStart.length != n + 1 || outStart[n] != target.length
+            || target.length != weight.length) {
+            throw new IllegalArgumentException("edges do not fit graph");
+        }
+
+        _outStart = outStart;
+        _target = target;
+        _weight = weight;
+        _edges = (Graph<VLabel, ELabel>.Edge[])
+            new Graph.Edge[target.length];
+        for (int i = 0; i < n; i += 1) {
+            int k = outStart[i];
+            if (G.outDegree(_vertices[i]) != outStart[i + 1] - k) {
+                throw new IllegalArgumentException("edges do not fit graph");
+            }
+            for (Graph<VLabel, ELabel>.Edge e : G.outEdges(_vertices[i])) {
+                _edges[k] = e;
+                k += 1;
+            }
+        }
+
+        int[][] in = invert(_outStart, _target);
+        _inStart = in[0];
+        _source = in[1];
+        _inEdge = in[2];
+    }
+
+    /** Returns the vertices of G in the order G.vertices() delivers
+     *  them. */
+    @SuppressWarnings("unchecked")
+    private static <VLabel, ELabel> Graph<VLabel, ELabel>.Vertex[]
+        vertices(Graph<VLabel, ELabel> G) {
+        Graph<VLabel, ELabel>.Vertex[] result
+            = (Graph<VLabel, ELabel>.Vertex[])
+            new Graph.Vertex[G.vertexSize()];
+        int i = 0;
+        for (Graph<VLabel, ELabel>.Vertex v : G.vertices()) {
+            result[i] = v;
+            i += 1;
+        }
+        return result;
+    }
+
+    /** Returns a map from each of VERTICES to its index. */
+    private static <VLabel, ELabel>
+        HashMap<Graph<VLabel, ELabel>.Vertex, Integer>
+        ids(Graph<VLabel, ELabel>.Vertex[] vertices) {
+        HashMap<Graph<VLabel, ELabel>.Vertex, Integer> result
+            = new HashMap<Graph<VLabel, ELabel>.Vertex, Integer>(
+                2 * vertices.length);
+        for (int i = 0; i < vertices.length; i += 1) {
+            result.put(vertices[i], i);
+        }
+        return result;
+    }
+
+    /** Returns the incoming-edge index of the edges laid out in OUTSTART
+     *  and TARGET, as the three arrays _inStart, _source and
+     *  _inEdge. */
+    private static int[][] invert(int[] outStart, int[] target) {
+        int n = outStart.length - 1;
+        int[] inStart = new int[n + 1];
+        for (int k = 0; k < target.length; k += 1) {
+            inStart[target[k] + 1] += 1;
+        }
+        for (int i = 0; i < n; i += 1) {
+            inStart[i + 1] += inStart[i];
+        }
+        int[] source = new int[target.length];
+        int[] inEdge = new int[target.length];
+        int[] fill = new int[n];
+        System.arraycopy(inStart, 0, fill, 0, n);
+        for (int i = 0; i < n; i += 1) {
+            for (int k = outStart[i]; k < outStart[i + 1]; k += 1) {
+                int j = fill[target[k]];
+                fill[target[k]] += 1;
+                source[j] = i;
+                inEdge[j] = k;
+            }
+        }
+        return new int[][] { inStart, source, inEdge };
+    }
+
+    /** Returns true iff the graph I was copied from is directed. */
+    public boolean isDirected() {
+        return _directed;
+    }
+
+    /** Returns the number of vertices in me. */
+    public int vertexSize() {
+        return _vertices.length;
+    }
+
+    /** Returns the number of edges in me, counting an undirected edge
+     *  once in each direction. */
+    public int edgeSize() {
+        return _target.length;
+    }
+
+    /** Returns the number of vertex V, or -1 if V was not a vertex of
+     *  the original graph when I was made. */
+    public int id(Graph<VLabel, ELabel>.Vertex v) {
+        Integer result = _ids.get(v);
+        return result == null ? -1 : result;
+    }
+
+    /** Returns the vertex of the original graph numbered V. */
+    public Graph<VLabel, ELabel>.Vertex vertex(int v) {
+        return _vertices[v];
+    }
+
+    /** Returns the label of the vertex numbered V. */
+    public VLabel label(int v) {
+        return _vertices[v].getLabel();
+    }
+
+    /** Returns the number of edges leaving V. */
+    public int outDegree(int v) {
+        return _outStart[v + 1] - _outStart[v];
+    }
+
+    /** Returns the number of edges entering V. */
+    public int inDegree(int v) {
+        return _inStart[v + 1] - _inStart[v];
+    }
+
+    /** Returns the index of the first edge leaving V. */
+    public int firstOut(int v) {
+        return _outStart[v];
+    }
+
+    /** Returns one past the index of the last edge leaving V. */
+    public int endOut(int v) {
+        return _outStart[v + 1];
+    }
+
+    /** Returns the vertex that edge K enters. */
+    public int target(int k) {
+        return _target[k];
+    }
+
+    /** Returns the weight of edge K. */
+    public double weight(int k) {
+        return _weight[k];
+    }
+
+    /** Returns the edge of the original graph numbered K. */
+    public Graph<VLabel, ELabel>.Edge edge(int k) {
+        return _edges[k];
+    }
+
+    /** Returns the position of the first incoming edge of V. */
+    public int firstIn(int v) {
+        return _inStart[v];
+    }
+
+    /** Returns one past the position of the last incoming edge of V. */
+    public int endIn(int v) {
+        return _inStart[v + 1];
+    }
+
+    /** Returns the vertex that the incoming edge at position J
+     *  leaves. */
+    public int source(int j) {
+        return _source[j];
+    }
+
+    /** Returns the edge number of the incoming edge at position J. */
+    public int inEdge(int j) {
+        return _inEdge[j];
+    }
+
+    /** True iff I was copied from a directed graph. */
+    private final boolean _directed;
+    /** The original vertices, indexed by number. */
+    private final Graph<VLabel, ELabel>.Vertex[] _vertices;
+    /** Maps original vertices to their numbers. */
+    private final HashMap<Graph<VLabel, ELabel>.Vertex, Integer> _ids;
+    /** The edges leaving v are numbered _outStart[v] to
+     *  _outStart[v + 1] - 1. */
+    private final int[] _outStart;
+    /** The vertex each edge enters. */
+    private final int[] _target;
+    /** The weight of each edge. */
+    private final double[] _weight;
+    /** The original edge for each edge number. */
+    private final Graph<VLabel, ELabel>.Edge[] _edges;
+    /** The incoming edges of v are at positions _inStart[v] to
+     *  _inStart[v + 1] - 1 of _source and _inEdge. */
+    private final int[] _inStart;
+    /** The vertex each incoming edge leaves. */
+    private final int[] _source;
+    /** The edge number of each incoming edge. */
+    private final int[] _inEdge;
+
+}
@@ -0,0 +1,181 @@
+package graph;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/** Junit Tests for CompactGraph.java
+ *  @author Felix Liu. */
+
+public class CompactGraphTest {
+
+    /** Builds the graph used by GraphTest.simpleShort. */
+    static DirectedGraph<Integer, Integer> sample() {
+        DirectedGraph<Integer, Integer> g
+            = new DirectedGraph<Integer, Integer>();
+        Graph<Integer, Integer>.Vertex S = g.add(7);
+        Graph<Integer, Integer>.Vertex A = g.add(6);
+        Graph<Integer, Integer>.Vertex B = g.add(4);
+        Graph<Integer, Integer>.Vertex C = g.add(2);
+        Graph<Integer, Integer>.Vertex G = g.add(0);
+        g.add(S, A, 1);
+        g.add(S, B, 4);
+        g.add(A, B, 2);
+        g.add(B, C, 2);
+        g.add(A, C, 5);
+        g.add(A, G, 12);
+        g.add(C, G, 3);
+        return g;
+    }
+
+    /** Returns a graph of N vertices, labeled 0 to N - 1, and 4 * N
+     *  edges between vertices chosen at random with SEED, each with a
+     *  label from 1 to 20. */
+    static DirectedGraph<Integer, Integer> random(long seed, int n) {
+        Random r = new Random(seed);
+        DirectedGraph<Integer, Integer> g
+            = new DirectedGraph<Integer, Integer>();
+        ArrayList<Graph<Integer, Integer>.Vertex> vs
+            = new ArrayList<Graph<Integer, Integer>.Vertex>();
+        for (int i = 0; i < n; i += 1) {
+            vs.add(g.add(i));
+        }
+        for (int i = 0; i < 4 * n; i += 1) {
+            g.add(vs.get(r.nextInt(n)), vs.get(r.nextInt(n)),
+                  1 + r.nextInt(20));
+        }
+        return g;
+    }
+
+    /** Checks that the rows mirror the original adjacency. */
+    @Test
+    public void layout() {
+        DirectedGraph<Integer, Integer> g = sample();
+        CompactGraph<Integer, Integer> c
+            = new CompactGraph<Integer, Integer>(g, GraphTest.EDGE);
+        assertEquals(5, c.vertexSize());
+        assertEquals(7, c.edgeSize());
+        for (Graph<Integer, Integer>.Vertex v : g.vertices()) {
+            int id = c.id(v);
+            assertEquals(v, c.vertex(id));
+            assertEquals(g.outDegree(v), c.outDegree(id));
+            assertEquals(g.inDegree(v), c.inDegree(id));
+            for (int k = c.firstOut(id); k < c.endOut(id); k += 1) {
+                assertEquals(v, c.edge(k).getV0());
+                assertEquals(c.edge(k).getV1(), c.vertex(c.target(k)));
+                assertEquals((double) c.edge(k).getLabel(), c.weight(k), 0);
+            }
+            for (int j = c.firstIn(id); j < c.endIn(id); j += 1) {
+                assertEquals(id, c.target(c.inEdge(j)));
+                assertEquals(c.edge(c.inEdge(j)).getV0(),
+                             c.vertex(c.source(j)));
+            }
+        }
+    }
+
+    /** Checks that a copy made from laid-out edge arrays matches one
+     *  made with a Weighting, and that arrays that do not fit are
+     *  refused. */
+    @Test
+    public void fromArrays() {
+        DirectedGraph<Integer, Integer> g = sample();
+        CompactGraph<Integer, Integer> c
+            = new CompactGraph<Integer, Integer>(g, GraphTest.EDGE);
+        int n = c.vertexSize(), m = c.edgeSize();
+        int[] outStart = new int[n + 1], target = new int[m];
+        double[] weight = new double[m];
+        for (int v = 0; v < n; v += 1) {
+            outStart[v + 1] = c.endOut(v);
+        }
+        for (int k = 0; k < m; k += 1) {
+            target[k] = c.target(k);
+            weight[k] = c.weight(k);
+        }
+        CompactGraph<Integer, Integer> d
+            = new CompactGraph<Integer, Integer>(g, outStart, target,
+                                                 weight);
+        for (int v = 0; v < n; v += 1) {
+            assertEquals(c.vertex(v), d.vertex(v));
+            assertEquals(c.firstIn(v), d.firstIn(v));
+            assertEquals(c.endIn(v), d.endIn(v));
+        }
+        for (int k = 0; k < m; k += 1) {
+            assertEquals(c.edge(k), d.edge(k));
+            assertEquals(c.source(k), d.source(k));
+            assertEquals(c.inEdge(k), d.inEdge(k));
+        }
+        outStart[1] += 1;
+        try {
+            new CompactGraph<Integer, Integer>(g, outStart, target, weight);
+            fail("uneven degrees accepted");
+        } catch (IllegalArgumentException e) {
+            /* Expected. */
+        }
+    }
+
+    /** Checks the compact version of shortestPath. */
+    @Test
+    public void compactShort() {
+        DirectedGraph<Integer, Integer> g = sample();
+        CompactGraph<Integer, Integer> c
+            = new CompactGraph<Integer, Integer>(g, GraphTest.EDGE);
+        List<Graph<Integer, Integer>.Edge> path
+            = Graphs.shortestPath(c, 0, 4, Graphs.ZERO_DISTANCER);
+        assertEquals(4, path.size());
+        int total = 0;
+        for (Graph<Integer, Integer>.Edge e : path) {
+            total += e.getLabel();
+        }
+        assertEquals(8, total);
+        assertEquals((Integer) 7, path.get(0).getV0().getLabel());
+        assertEquals((Integer) 0, path.get(3).getV1().getLabel());
+        assertEquals(null, Graphs.shortestPath(c, 4, 0,
+                                               Graphs.ZERO_DISTANCER));
+    }
+
+    /** Checks distances and distanceMatrix on the sample graph and on a
+     *  random one, against single searches. */
+    @Test
+    public void distanceMatrix() {
+        double inf = Double.POSITIVE_INFINITY;
+        CompactGraph<Integer, Integer> c
+            = new CompactGraph<Integer, Integer>(sample(), GraphTest.EDGE);
+        int[] targets = { 4, 0, 2, -1, 4 };
+        assertArrayEquals(new double[] { 8, 0, 3, inf, 8 },
+                          Graphs.distances(c, 0, targets), 0);
+        double[][] m = Graphs.distanceMatrix(c, new int[] { 0, 1, 4 },
+                                             targets);
+        assertArrayEquals(new double[] { 8, 0, 3, inf, 8 }, m[0], 0);
+        assertArrayEquals(new double[] { 7, inf, 2, inf, 7 }, m[1], 0);
+        assertArrayEquals(new double[] { 0, inf, inf, inf, 0 }, m[2], 0);
+
+        int n = 300;
+        c = new CompactGraph<Integer, Integer>(random(63, n),
+                                               GraphTest.EDGE);
+        Random r = new Random(63);
+        int[] sources = new int[40];
+        targets = new int[30];
+        for (int i = 0; i < sources.length; i += 1) {
+            sources[i] = r.nextInt(n);
+        }
+        for (int j = 0; j < targets.length; j += 1) {
+            targets[j] = r.nextInt(n);
+        }
+        m = Graphs.distanceMatrix(c, sources, targets, 3);
+        SearchContext<Integer, Integer> context
+            = new SearchContext<Integer, Integer>();
+        for (int i = 0; i < sources.length; i += 1) {
+            for (int j = 0; j < targets.length; j += 1) {
+                if (Graphs.shortestPath(c, sources[i], targets[j],
+                                        Graphs.ZERO_DISTANCER, context)
+                    == null) {
+                    assertEquals(inf, m[i][j], 0);
+                } else {
+                    assertEquals(context.distance(targets[j]), m[i][j], 0);
+                }
+            }
+        }
+    }
+}
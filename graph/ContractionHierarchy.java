@@ -0,0 +1,690 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/** A contraction hierarchy over a fixed graph: a preprocessed form of
+ *  the graph that answers shortest-path queries by searching only a
+ *  tiny part of it.  Preprocessing ranks the vertices by importance and
+ *  removes ("contracts") them from least to most important.  Whenever
+ *  removing a vertex v would lengthen the shortest path between two of
+ *  its remaining neighbors u and w, a shortcut edge u->w standing for
+ *  u->v->w is added.  A query then runs a bidirectional Dijkstra search
+ *  in which each side only follows edges toward more important
+ *  vertices.  Shortcuts remember the two edges they replace, so a
+ *  query's answer is unpacked back into the edges of the original
+ *  graph.  The graph must not change after the hierarchy is built,
+ *  and edge weights must not be negative.  Queries may run
+ *  concurrently.  VLABEL and ELABEL are the label types of the
+ *  original graph.
+ *  @author Felix Liu
+ */
+public final class ContractionHierarchy<VLabel, ELabel> {
+
+    /** A hierarchy for G, with edge weights given by applying
+     *  EWEIGHTER to the edge labels. */
+    public ContractionHierarchy(Graph<VLabel, ELabel> G,
+                                Weighting<? super ELabel> eweighter) {
+        this(new CompactGraph<VLabel, ELabel>(G, eweighter));
+    }
+
+    /** A hierarchy for G, with G's edge weights. */
+    public ContractionHierarchy(CompactGraph<VLabel, ELabel> G) {
+        _graph = G;
+        _n = G.vertexSize();
+        _rank = new int[_n];
+        _arcs = new Arcs(G.edgeSize());
+        contract();
+        _forward = new UpGraph(true);
+        _backward = new UpGraph(false);
+    }
+
+    /** Returns the graph I was built over. */
+    public CompactGraph<VLabel, ELabel> graph() {
+        return _graph;
+    }
+
+    /** Returns the number of shortcuts preprocessing added. */
+    public int shortcuts() {
+        return _arcs.size() - _originalArcs;
+    }
+
+    /** Returns the importance rank of the vertex numbered V: 0 for the
+     *  first vertex contracted, vertexSize() - 1 for the last. */
+    public int rank(int v) {
+        return _rank[v];
+    }
+
+    /** Returns a path of minimum weight from V0 to V1 as a list of
+     *  edges of the original graph, or null if there is none. */
+    public List<Graph<VLabel, ELabel>.Edge>
+    shortestPath(Graph<VLabel, ELabel>.Vertex V0,
+                 Graph<VLabel, ELabel>.Vertex V1) {
+        return shortestPath(_graph.id(V0), _graph.id(V1));
+    }
+
+    /** Returns a path of minimum weight from the vertex numbered V0 to
+     *  the vertex numbered V1 as a list of edges of the original graph,
+     *  or null if there is none.  Either number may be -1, standing for
+     *  a vertex not in the graph. */
+    public List<Graph<VLabel, ELabel>.Edge> shortestPath(int V0, int V1) {
+        if (V0 < 0 || V1 < 0) {
+            return null;
+        }
+        Search search = _searches.get();
+        if (!search.run(V0, V1)) {
+            return null;
+        }
+        ArrayList<Graph<VLabel, ELabel>.Edge> bestPath
+            = new ArrayList<Graph<VLabel, ELabel>.Edge>();
+        int[] arcs = search.arcs();
+        for (int a : arcs) {
+            unpack(a, bestPath);
+        }
+        return bestPath;
+    }
+
+    /** Returns the weight of a shortest path from the vertex numbered V0
+     *  to the one numbered V1, or Double.POSITIVE_INFINITY if there is
+     *  none. */
+    public double distance(int V0, int V1) {
+        if (V0 < 0 || V1 < 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        Search search = _searches.get();
+        if (!search.run(V0, V1)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return search.best();
+    }
+
+    /** Appends the original edges that arc A stands for to PATH, in
+     *  order. */
+    private void unpack(int a, ArrayList<Graph<VLabel, ELabel>.Edge> path) {
+        int[] stack = new int[16];
+        int top = 0;
+        stack[top++] = a;
+        while (top > 0) {
+            int arc = stack[--top];
+            if (_arcs.original[arc] >= 0) {
+                path.add(_graph.edge(_arcs.original[arc]));
+            } else {
+                if (top + 2 > stack.length) {
+                    stack = Arrays.copyOf(stack, 2 * stack.length);
+                }
+                stack[top++] = _arcs.second[arc];
+                stack[top++] = _arcs.first[arc];
+            }
+        }
+    }
+
+    /* Preprocessing */
+
+    /** Contracts every vertex, recording ranks in _rank and adding
+     *  shortcuts to _arcs. */
+    private void contract() {
+        IntList[] outs = new IntList[_n];
+        IntList[] ins = new IntList[_n];
+        for (int v = 0; v < _n; v += 1) {
+            outs[v] = new IntList();
+            ins[v] = new IntList();
+        }
+        for (int v = 0; v < _n; v += 1) {
+            for (int k = _graph.firstOut(v); k < _graph.endOut(v); k += 1) {
+                int w = _graph.target(k);
+                if (w == v) {
+                    continue;
+                }
+                int old = find(outs[v], v, w);
+                if (old < 0) {
+                    int a = _arcs.add(v, w, _graph.weight(k), k, -1, -1);
+                    outs[v].add(a);
+                    ins[w].add(a);
+                } else if (_graph.weight(k) < _arcs.weight[old]) {
+                    _arcs.weight[old] = _graph.weight(k);
+                    _arcs.original[old] = k;
+                }
+            }
+        }
+        _originalArcs = _arcs.size();
+
+        Contractor work = new Contractor(outs, ins);
+        IndexedHeap order = new IndexedHeap(_n);
+        for (int v = 0; v < _n; v += 1) {
+            order.put(v, work.priority(v));
+        }
+        int next = 0;
+        while (!order.isEmpty()) {
+            /* Contracting a vertex changes its neighbors' priorities.
+             * Rather than recompute them all, each vertex's priority is
+             * brought up to date when it reaches the front. */
+            int v = order.poll();
+            double priority = work.priority(v);
+            if (!order.isEmpty() && priority > order.peekKey()) {
+                order.put(v, priority);
+                continue;
+            }
+            _rank[v] = next;
+            next += 1;
+            work.contract(v);
+        }
+    }
+
+    /** Returns the arc in LIST from U to W, or -1 if there is none. */
+    private int find(IntList list, int u, int w) {
+        for (int i = 0; i < list.size(); i += 1) {
+            int a = list.get(i);
+            if (_arcs.tail[a] == u && _arcs.head[a] == w) {
+                return a;
+            }
+        }
+        return -1;
+    }
+
+    /** The state of preprocessing: the arcs among the vertices not yet
+     *  contracted, and scratch space for witness searches. */
+    private class Contractor {
+
+        /** A contractor over the arcs in OUTS and INS, the arcs leaving
+         *  and entering each vertex. */
+        Contractor(IntList[] outs, IntList[] ins) {
+            _outs = outs;
+            _ins = ins;
+            _deleted = new int[_n];
+            _level = new int[_n];
+            _dist = new double[_n];
+            Arrays.fill(_dist, Double.POSITIVE_INFINITY);
+            _target = new int[_n];
+            _touched = new IntList();
+            _heap = new IndexedHeap(_n);
+        }
+
+        /** Returns how attractive V is to contract next; smaller is
+         *  better.  This is the number of shortcuts contracting V would
+         *  add less the number of arcs it would remove, plus the number
+         *  of V's neighbors already contracted and the depth of the
+         *  hierarchy below V, both of which spread contraction evenly
+         *  over the graph. */
+        double priority(int v) {
+            int removed = _outs[v].size() + _ins[v].size();
+            return 2 * shortcutsFor(v, false) - removed
+                + _deleted[v] + _level[v];
+        }
+
+        /** Removes V, adding the shortcuts that keep distances among
+         *  the remaining vertices unchanged. */
+        void contract(int v) {
+            shortcutsFor(v, true);
+            IntList result = new IntList();
+            for (int i = 0; i < _outs[v].size(); i += 1) {
+                int a = _outs[v].get(i);
+                _ins[_arcs.head[a]].remove(a);
+                result.add(_arcs.head[a]);
+            }
+            for (int i = 0; i < _ins[v].size(); i += 1) {
+                int a = _ins[v].get(i);
+                _outs[_arcs.tail[a]].remove(a);
+                result.add(_arcs.tail[a]);
+            }
+            for (int i = 0; i < result.size(); i += 1) {
+                int w = result.get(i);
+                _deleted[w] += 1;
+                _level[w] = Math.max(_level[w], _level[v] + 1);
+            }
+        }
+
+        /** Returns the number of shortcuts that contracting V requires,
+         *  adding them if ADD. */
+        int shortcutsFor(int v, boolean add) {
+            int count = 0;
+            double longestOut = 0.0;
+            for (int j = 0; j < _outs[v].size(); j += 1) {
+                longestOut = Math.max(longestOut,
+                                      _arcs.weight[_outs[v].get(j)]);
+            }
+            for (int i = 0; i < _ins[v].size(); i += 1) {
+                int in = _ins[v].get(i);
+                int u = _arcs.tail[in];
+                witnesses(u, v, _arcs.weight[in] + longestOut,
+                          add ? WITNESS_SETTLED : SIMULATED_SETTLED);
+                for (int j = 0; j < _outs[v].size(); j += 1) {
+                    int out = _outs[v].get(j);
+                    int w = _arcs.head[out];
+                    if (w == u) {
+                        continue;
+                    }
+                    double through = _arcs.weight[in] + _arcs.weight[out];
+                    if (_dist[w] <= through) {
+                        continue;
+                    }
+                    count += 1;
+                    if (add) {
+                        shortcut(u, w, through, in, out);
+                    }
+                }
+                clearWitnesses();
+            }
+            return count;
+        }
+
+        /** Adds or shortens the arc from U to W so that it has weight
+         *  WEIGHT and stands for arc FIRST followed by arc SECOND. */
+        private void shortcut(int u, int w, double weight,
+                              int first, int second) {
+            int old = find(_outs[u], u, w);
+            if (old < 0) {
+                int a = _arcs.add(u, w, weight, -1, first, second);
+                _outs[u].add(a);
+                _ins[w].add(a);
+            } else if (weight < _arcs.weight[old]) {
+                _arcs.weight[old] = weight;
+                _arcs.original[old] = -1;
+                _arcs.first[old] = first;
+                _arcs.second[old] = second;
+            }
+        }
+
+        /** Runs a Dijkstra search from U among the remaining vertices
+         *  other than V, leaving distances in _dist.  The search stops
+         *  once it has settled every vertex V leads to, has passed
+         *  LIMIT, or has settled SETTLED vertices.  A vertex's distance
+         *  may be overestimated when the search is cut off, which only
+         *  costs an unnecessary shortcut. */
+        private void witnesses(int u, int v, double limit, int settled) {
+            _stamp += 1;
+            int targets = 0;
+            for (int j = 0; j < _outs[v].size(); j += 1) {
+                int w = _arcs.head[_outs[v].get(j)];
+                if (w != u && _target[w] != _stamp) {
+                    _target[w] = _stamp;
+                    targets += 1;
+                }
+            }
+            _dist[u] = 0.0;
+            _touched.add(u);
+            _heap.put(u, 0.0);
+            while (targets > 0 && !_heap.isEmpty() && settled > 0
+                   && _heap.peekKey() <= limit) {
+                int x = _heap.poll();
+                settled -= 1;
+                if (_target[x] == _stamp) {
+                    targets -= 1;
+                }
+                for (int i = 0; i < _outs[x].size(); i += 1) {
+                    int a = _outs[x].get(i);
+                    int y = _arcs.head[a];
+                    if (y == v) {
+                        continue;
+                    }
+                    double d = _dist[x] + _arcs.weight[a];
+                    if (d < _dist[y]) {
+                        if (_dist[y] == Double.POSITIVE_INFINITY) {
+                            _touched.add(y);
+                        }
+                        _dist[y] = d;
+                        _heap.put(y, d);
+                    }
+                }
+            }
+        }
+
+        /** Resets the distances left by the last witness search. */
+        private void clearWitnesses() {
+            for (int i = 0; i < _touched.size(); i += 1) {
+                _dist[_touched.get(i)] = Double.POSITIVE_INFINITY;
+            }
+            _touched.clear();
+            _heap.clear();
+        }
+
+        /** The arcs leaving each remaining vertex for another. */
+        private final IntList[] _outs;
+        /** The arcs entering each remaining vertex from another. */
+        private final IntList[] _ins;
+        /** The number of contracted neighbors of each vertex. */
+        private final int[] _deleted;
+        /** The depth of the hierarchy built below each vertex so far. */
+        private final int[] _level;
+        /** Witness search distances, infinite when untouched. */
+        private final double[] _dist;
+        /** Equals _stamp for the vertices the current witness search
+         *  is looking for. */
+        private final int[] _target;
+        /** Number of witness searches begun. */
+        private int _stamp;
+        /** Vertices whose _dist the last witness search set. */
+        private final IntList _touched;
+        /** Witness search fringe. */
+        private final IndexedHeap _heap;
+    }
+
+    /* Queries */
+
+    /** The edges a query may follow from one side, in compressed-sparse
+     *  row form: those leading to a more important vertex. */
+    private class UpGraph {
+
+        /** The upward graph for the forward search if FORWARD, or for
+         *  the backward search (following arcs against their direction)
+         *  otherwise. */
+        UpGraph(boolean forward) {
+            int m = _arcs.size();
+            start = new int[_n + 1];
+            for (int a = 0; a < m; a += 1) {
+                int from = forward ? _arcs.tail[a] : _arcs.head[a];
+                int to = forward ? _arcs.head[a] : _arcs.tail[a];
+                if (_rank[to] > _rank[from]) {
+                    start[from + 1] += 1;
+                }
+            }
+            for (int v = 0; v < _n; v += 1) {
+                start[v + 1] += start[v];
+            }
+            target = new int[start[_n]];
+            weight = new double[start[_n]];
+            arc = new int[start[_n]];
+            int[] fill = Arrays.copyOf(start, _n);
+            for (int a = 0; a < m; a += 1) {
+                int from = forward ? _arcs.tail[a] : _arcs.head[a];
+                int to = forward ? _arcs.head[a] : _arcs.tail[a];
+                if (_rank[to] > _rank[from]) {
+                    int k = fill[from];
+                    fill[from] += 1;
+                    target[k] = to;
+                    weight[k] = _arcs.weight[a];
+                    arc[k] = a;
+                }
+            }
+        }
+
+        /** The upward edges of v are at positions start[v] to
+         *  start[v + 1] - 1. */
+        private final int[] start;
+        /** The vertex each upward edge leads to. */
+        private final int[] target;
+        /** The weight of each upward edge. */
+        private final double[] weight;
+        /** The arc each upward edge follows. */
+        private final int[] arc;
+    }
+
+    /** The scratch space of one thread's queries.  Distances are reset
+     *  by walking the list of touched vertices, so a query costs time
+     *  in proportion to the part of the hierarchy it searches, not the
+     *  size of the graph. */
+    private class Search {
+
+        /** Scratch space for a graph of _n vertices. */
+        Search() {
+            for (int side = 0; side < 2; side += 1) {
+                _dist[side] = new double[_n];
+                Arrays.fill(_dist[side], Double.POSITIVE_INFINITY);
+                _via[side] = new int[_n];
+                _heap[side] = new IndexedHeap(_n);
+            }
+            _touched = new IntList();
+        }
+
+        /** Searches from V0 to V1, returning true iff V1 is reachable. */
+        boolean run(int V0, int V1) {
+            reset();
+            _best = Double.POSITIVE_INFINITY;
+            _meet = -1;
+            _V0 = V0;
+            _V1 = V1;
+            reach(0, V0, 0.0, -1);
+            reach(1, V1, 0.0, -1);
+            while (true) {
+                boolean more0 = !_heap[0].isEmpty()
+                    && _heap[0].peekKey() < _best;
+                boolean more1 = !_heap[1].isEmpty()
+                    && _heap[1].peekKey() < _best;
+                if (!more0 && !more1) {
+                    break;
+                }
+                int side = !more1 || (more0
+                    && _heap[0].peekKey() <= _heap[1].peekKey()) ? 0 : 1;
+                int v = _heap[side].poll();
+                double d = _dist[side][v];
+                double other = _dist[1 - side][v];
+                if (d + other < _best) {
+                    _best = d + other;
+                    _meet = v;
+                }
+                UpGraph up = side == 0 ? _forward : _backward;
+                if (stalled(side, v, d, side == 0 ? _backward : _forward)) {
+                    continue;
+                }
+                for (int k = up.start[v]; k < up.start[v + 1]; k += 1) {
+                    int w = up.target[k];
+                    double nd = d + up.weight[k];
+                    if (nd < _dist[side][w]) {
+                        reach(side, w, nd, up.arc[k]);
+                    }
+                }
+            }
+            return _meet >= 0;
+        }
+
+        /** Returns true iff side SIDE, having reached V at distance D, can
+         *  reach V more cheaply from some more important vertex, using
+         *  the edges DOWN that lead to V from above.  Such a V cannot
+         *  be on a shortest path, so its edges need not be followed
+         *  ("stall-on-demand"). */
+        private boolean stalled(int side, int v, double d, UpGraph down) {
+            for (int k = down.start[v]; k < down.start[v + 1]; k += 1) {
+                if (_dist[side][down.target[k]] + down.weight[k] < d) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /** Returns the weight of the path the last run found. */
+        double best() {
+            return _best;
+        }
+
+        /** Returns the arcs, in order, of the path the last run found. */
+        int[] arcs() {
+            IntList result = new IntList();
+            for (int v = _meet; v != _V0;) {
+                int a = _via[0][v];
+                result.add(a);
+                v = _arcs.tail[a];
+            }
+            result.reverse();
+            for (int v = _meet; v != _V1;) {
+                int a = _via[1][v];
+                result.add(a);
+                v = _arcs.head[a];
+            }
+            return result.toArray();
+        }
+
+        /** Records that side SIDE reached V at distance D by ARC. */
+        private void reach(int side, int v, double d, int arc) {
+            if (_dist[0][v] == Double.POSITIVE_INFINITY
+                && _dist[1][v] == Double.POSITIVE_INFINITY) {
+                _touched.add(v);
+            }
+            _dist[side][v] = d;
+            _via[side][v] = arc;
+            _heap[side].put(v, d);
+        }
+
+        /** Undoes the last run. */
+        private void reset() {
+            for (int i = 0; i < _touched.size(); i += 1) {
+                int v = _touched.get(i);
+                _dist[0][v] = _dist[1][v] = Double.POSITIVE_INFINITY;
+            }
+            _touched.clear();
+            _heap[0].clear();
+            _heap[1].clear();
+        }
+
+        /** Distances from each side. */
+        private final double[][] _dist = new double[2][];
+        /** The arc by which each side reached each vertex. */
+        private final int[][] _via = new int[2][];
+        /** Each side's fringe. */
+        private final IndexedHeap[] _heap = new IndexedHeap[2];
+        /** Vertices either side has reached. */
+        private final IntList _touched;
+        /** Length of the best path found. */
+        private double _best;
+        /** Where the best path's halves meet, or -1. */
+        private int _meet;
+        /** The ends of the last query. */
+        private int _V0, _V1;
+    }
+
+    /** All arcs, original and shortcut, in parallel arrays. */
+    private static final class Arcs {
+
+        /** Room for about CAPACITY arcs. */
+        Arcs(int capacity) {
+            int cap = Math.max(capacity, 4);
+            tail = new int[cap];
+            head = new int[cap];
+            weight = new double[cap];
+            original = new int[cap];
+            first = new int[cap];
+            second = new int[cap];
+        }
+
+        /** Returns the number of arcs. */
+        int size() {
+            return _size;
+        }
+
+        /** Returns the number of a new arc from TAIL to HEAD of weight
+         *  WEIGHT, standing either for edge ORIGINAL of the compact
+         *  graph, or (if ORIGINAL is -1) for arc FIRST followed by arc
+         *  SECOND. */
+        int add(int tail0, int head0, double weight0, int original0,
+                int first0, int second0) {
+            if (_size == tail.length) {
+                int cap = 2 * _size;
+                tail = Arrays.copyOf(tail, cap);
+                head = Arrays.copyOf(head, cap);
+                weight = Arrays.copyOf(weight, cap);
+                original = Arrays.copyOf(original, cap);
+                first = Arrays.copyOf(first, cap);
+                second = Arrays.copyOf(second, cap);
+            }
+            tail[_size] = tail0;
+            head[_size] = head0;
+            weight[_size] = weight0;
+            original[_size] = original0;
+            first[_size] = first0;
+            second[_size] = second0;
+            _size += 1;
+            return _size - 1;
+        }
+
+        /** The vertex each arc leaves. */
+        private int[] tail;
+        /** The vertex each arc enters. */
+        private int[] head;
+        /** The weight of each arc. */
+        private double[] weight;
+        /** The compact edge each arc is, or -1 for a shortcut. */
+        private int[] original;
+        /** The first of the two arcs a shortcut stands for. */
+        private int[] first;
+        /** The second of the two arcs a shortcut stands for. */
+        private int[] second;
+        /** Number of arcs. */
+        private int _size;
+    }
+
+    /** A growable list of ints. */
+    private static final class IntList {
+
+        /** Returns the number of items. */
+        int size() {
+            return _size;
+        }
+
+        /** Returns item I. */
+        int get(int i) {
+            return _items[i];
+        }
+
+        /** Appends X. */
+        void add(int x) {
+            if (_size == _items.length) {
+                _items = Arrays.copyOf(_items, 2 * _size);
+            }
+            _items[_size] = x;
+            _size += 1;
+        }
+
+        /** Removes one occurrence of X, if any, not preserving order. */
+        void remove(int x) {
+            for (int i = 0; i < _size; i += 1) {
+                if (_items[i] == x) {
+                    _size -= 1;
+                    _items[i] = _items[_size];
+                    return;
+                }
+            }
+        }
+
+        /** Removes all items. */
+        void clear() {
+            _size = 0;
+        }
+
+        /** Reverses the order of the items. */
+        void reverse() {
+            for (int i = 0, j = _size - 1; i < j; i += 1, j -= 1) {
+                int tmp = _items[i];
+                _items[i] = _items[j];
+                _items[j] = tmp;
+            }
+        }
+
+        /** Returns the items as an array. */
+        int[] toArray() {
+            return Arrays.copyOf(_items, _size);
+        }
+
+        /** The items, in _items[0 .. _size-1]. */
+        private int[] _items = new int[4];
+        /** Number of items. */
+        private int _size;
+    }
+
+    /** Most vertices a witness search settles before giving up. */
+    private static final int WITNESS_SETTLED = 500;
+    /** Most vertices settled by the witness searches that estimate
+     *  a vertex's priority, which need not be exact. */
+    private static final int SIMULATED_SETTLED = 50;
+
+    /** The graph I was built over. */
+    private final CompactGraph<VLabel, ELabel> _graph;
+    /** Number of vertices. */
+    private final int _n;
+    /** The rank of each vertex. */
+    private final int[] _rank;
+    /** Original arcs, then shortcuts. */
+    private final Arcs _arcs;
+    /** Number of original arcs. */
+    private int _originalArcs;
+    /** Upward edges for forward searches. */
+    private final UpGraph _forward;
+    /** Upward edges, reversed, for backward searches. */
+    private final UpGraph _backward;
+    /** Each thread's query scratch space. */
+    private final ThreadLocal<Search> _searches = new ThreadLocal<Search>() {
+        @Override
+        protected Search initialValue() {
+            return new Search();
+        }
+    };
+
+}
@@ -0,0 +1,69 @@
+package graph;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.List;
+import java.util.Random;
+
+/** Junit Tests for ContractionHierarchy.java
+ *  @author Felix Liu. */
+
+public class ContractionHierarchyTest {
+
+    /** Returns the total weight of PATH, checking that it is connected
+     *  and runs from V0 to V1. */
+    static int walk(List<Graph<Integer, Integer>.Edge> path,
+                    Graph<Integer, Integer>.Vertex v0,
+                    Graph<Integer, Integer>.Vertex v1) {
+        int total = 0;
+        Graph<Integer, Integer>.Vertex at = v0;
+        for (Graph<Integer, Integer>.Edge e : path) {
+            assertEquals(at, e.getV0());
+            at = e.getV1();
+            total += e.getLabel();
+        }
+        assertEquals(v1, at);
+        return total;
+    }
+
+    /** Checks queries on the graph used by GraphTest.simpleShort. */
+    @Test
+    public void sampleShort() {
+        DirectedGraph<Integer, Integer> g = CompactGraphTest.sample();
+        ContractionHierarchy<Integer, Integer> ch
+            = new ContractionHierarchy<Integer, Integer>(g, GraphTest.EDGE);
+        CompactGraph<Integer, Integer> c = ch.graph();
+        List<Graph<Integer, Integer>.Edge> path = ch.shortestPath(0, 4);
+        assertEquals(4, path.size());
+        assertEquals(8, walk(path, c.vertex(0), c.vertex(4)));
+        assertEquals(8.0, ch.distance(0, 4), 0);
+        assertEquals(null, ch.shortestPath(4, 0));
+        assertEquals(Double.POSITIVE_INFINITY, ch.distance(4, 0), 0);
+        assertEquals(0, ch.shortestPath(2, 2).size());
+    }
+
+    /** Checks a random graph against the compact A* search, with shortcuts
+     *  unpacked into original edges. */
+    @Test
+    public void randomShort() {
+        int n = 300;
+        DirectedGraph<Integer, Integer> g = CompactGraphTest.random(61, n);
+        Random r = new Random(61);
+        ContractionHierarchy<Integer, Integer> ch
+            = new ContractionHierarchy<Integer, Integer>(g, GraphTest.EDGE);
+        CompactGraph<Integer, Integer> c = ch.graph();
+        for (int q = 0; q < 200; q += 1) {
+            int s = r.nextInt(n), t = r.nextInt(n);
+            List<Graph<Integer, Integer>.Edge> expected
+                = Graphs.shortestPath(c, s, t, Graphs.ZERO_DISTANCER);
+            List<Graph<Integer, Integer>.Edge> actual = ch.shortestPath(s, t);
+            if (expected == null) {
+                assertEquals(null, actual);
+            } else {
+                int weight = walk(expected, c.vertex(s), c.vertex(t));
+                assertEquals(weight, walk(actual, c.vertex(s), c.vertex(t)));
+                assertEquals(weight, ch.distance(s, t), 0);
+            }
+        }
+    }
+}
@@ -2,10 +2,10 @@ package graph;
 
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.List;
 import java.util.Collections;
-import java.util.Stack;
 import java.util.LinkedList;
 
 /* Do not add or remove public or protected members, or modify the signatures of
@@ -66,18 +66,85 @@ public abstract class Graph<VLabel, ELabel> {
             pred.add(input);
         }
 
-        /** Cleans up the ArrayList for neighboring
-         *  vertices. A partner for adjacency cleaner
-         *  to avoid private issues and takes in the
-         *  vertex INPUT. */
-        void scrubber(Vertex input) {
-            communion.removeAll(Collections.singleton(input));
+        /** Removes one occurrence of the vertex INPUT from
+         *  communion, undoing a single call to partner. */
+        void unpartner(Vertex input) {
+            communion.remove(input);
         }
 
-        /** Helps to clean up the pred for predecessors in
-         *  the case of Directed Graphs. Takes in the vertex INPUT. */
-        void scrubber2(Vertex input) {
-            pred.removeAll(Collections.singleton(input));
+        /** Removes one occurrence of the vertex INPUT from
+         *  pred, undoing a single call to predpartner. */
+        void unpredpartner(Vertex input) {
+            pred.remove(input);
+        }
+
+        /** Records the edge E, which leaves me, in my outgoing
+         *  list and in the index keyed by its other end. */
+        void attachOut(Edge e) {
+            outgoing.add(e);
+            if (links == null) {
+                links = new HashMap<Vertex, ArrayList<Edge>>();
+            }
+            ArrayList<Edge> bucket = links.get(e.getV1());
+            if (bucket == null) {
+                bucket = new ArrayList<Edge>(1);
+                links.put(e.getV1(), bucket);
+            }
+            bucket.add(e);
+        }
+
+        /** Records the edge E, which enters me, in my incoming list. */
+        void attachIn(Edge e) {
+            incoming.add(e);
+        }
+
+        /** Forgets the outgoing edge E. */
+        void detachOut(Edge e) {
+            outgoing.remove(e);
+            ArrayList<Edge> bucket = links.get(e.getV1());
+            bucket.remove(e);
+            if (bucket.isEmpty()) {
+                links.remove(e.getV1());
+            }
+        }
+
+        /** Forgets the incoming edge E. */
+        void detachIn(Edge e) {
+            incoming.remove(e);
+        }
+
+        /** Returns the edges leaving me in insertion order. */
+        ArrayList<Edge> outgoing() {
+            return outgoing;
+        }
+
+        /** Returns the edges entering me in insertion order. */
+        ArrayList<Edge> incoming() {
+            return incoming;
+        }
+
+        /** Returns the edges that leave me and enter V, possibly
+         *  empty. The result must not be modified. */
+        List<Edge> edgesTo(Vertex v) {
+            if (links == null) {
+                return Collections.emptyList();
+            }
+            ArrayList<Edge> bucket = links.get(v);
+            if (bucket == null) {
+                return Collections.emptyList();
+            }
+            return bucket;
+        }
+
+        /** Returns true iff I am currently a vertex of GRAPH. */
+        boolean memberOf(Graph<?, ?> graph) {
+            return member && Graph.this == graph;
+        }
+
+        /** Marks me as belonging (or, if IN is false, no longer
+         *  belonging) to my graph. */
+        void setMember(boolean in) {
+            member = in;
         }
 
         @Override
@@ -100,39 +167,21 @@ public abstract class Graph<VLabel, ELabel> {
         private ArrayList<Vertex> pred
             = new ArrayList<Vertex>();
 
-        /** Returns the current status of the marking of
-         *  this vertex. Takes in the string INPUT. */
-        boolean status(String input) {
-            switch(input) {
-            case "discovered":
-                return discovered;
-            case "explored":
-                return explored;
-            default:
-                return false;
-            }
-        }
+        /** Edges whose getV0() is me. */
+        private ArrayList<Edge> outgoing = new ArrayList<Edge>(2);
 
-        /** Discover function which changes
-         *  discovered to true. */
-        void discover() {
-            discovered = true;
-        }
+        /** Edges whose getV1() is me. */
+        private ArrayList<Edge> incoming = new ArrayList<Edge>(2);
 
+        /** My outgoing edges keyed by the vertex they enter.  Created
+         *  on the first outgoing edge, so sinks cost nothing. */
+        private HashMap<Vertex, ArrayList<Edge>> links;
 
-        /** Explore function which changes
-         *  explored to true. */
-        void explore() {
-            explored = true;
-        }
+        /** True while I am one of the vertices of my graph. */
+        private boolean member = false;
 
-        /** boolean which states the state of
-         *  discovery. */
-        private boolean discovered = false;
-
-        /** boolean which states the state of
-         *  explored. */
-        private boolean explored = false;
+        /** My position in masterVert. */
+        private int index;
     }
 
     /** Represents one of my edges. */
@@ -187,54 +236,26 @@ public abstract class Graph<VLabel, ELabel> {
         /** The label on this edge. */
         private final ELabel _label;
 
-        /** Returns the current status of the marking of
-         *  this vertex. Takes in the string INPUT. */
-        boolean status(String input) {
-            switch(input) {
-            case "discovered":
-                return discovered;
-            case "explored":
-                return explored;
-            default:
-                return false;
-            }
-        }
-
-        /** Discover function which changes
-         *  discovered to true. */
-        void discover() {
-            discovered = true;
-        }
-
-        /** Explore function which changes
-         *  explored to true. */
-        void explore() {
-            explored = true;
-        }
-
-        /** boolean which states the state of
-         *  discovery. */
-        private boolean discovered = false;
-
-        /** boolean which states the state of
-         *  explored. */
-        private boolean explored = false;
+        /** My position in masterEdge. */
+        private int index;
     }
 
     /*=====  Methods and variables of Graph =====*/
 
 
-    /** ArrayList to hold the vertices. */
+    /** ArrayList to hold the vertices.  A removed vertex leaves a null
+     *  in its place until compactVertices closes the gaps. */
     private ArrayList<Vertex> masterVert = new ArrayList<Vertex>();
 
-    /** ArrayList to hold the edges. */
+    /** ArrayList to hold the edges, with nulls left by removed edges
+     *  until compactEdges closes the gaps. */
     private ArrayList<Edge> masterEdge = new ArrayList<Edge>();
 
-    /** Stack which aids in reconstruction. */
-    private Stack<Vertex> stack = new Stack<Vertex>();
+    /** Number of nulls in masterVert. */
+    private int deadVert;
 
-    /** ArrayList that holds the best path. */
-    private ArrayList<Edge> bestPath = new ArrayList<Edge>();
+    /** Number of nulls in masterEdge. */
+    private int deadEdge;
 
     /** method helps to create a new vertex according
      *  to LABEL. Returns a Vertex. */
@@ -244,15 +265,15 @@ public abstract class Graph<VLabel, ELabel> {
 
     /** Returns the number of vertices in me. */
     public int vertexSize() {
-        return masterVert.size();
+        return masterVert.size() - deadVert;
     }
 
     /** Returns the number of edges in me. */
     public int edgeSize() {
         if (isDirected()) {
-            return masterEdge.size();
+            return masterEdge.size() - deadEdge;
         } else {
-            return (masterEdge.size() / 2);
+            return ((masterEdge.size() - deadEdge) / 2);
         }
     }
 
@@ -262,27 +283,13 @@ public abstract class Graph<VLabel, ELabel> {
     /** Returns the number of outgoing edges incident to V. Assumes V is one of
      *  my vertices.  */
     public int outDegree(Vertex v) {
-        int count = 0;
-        for (Edge items : masterEdge) {
-            Vertex tmp = items.getV0();
-            if (tmp.equals(v)) {
-                count++;
-            }
-        }
-        return count;
+        return v.outgoing().size();
     }
 
     /** Returns the number of incoming edges incident to V. Assumes V is one of
      *  my vertices. */
     public int inDegree(Vertex v) {
-        int count = 0;
-        for (Edge items : masterEdge) {
-            Vertex tmp = items.getV1();
-            if (tmp.equals(v)) {
-                count++;
-            }
-        }
-        return count;
+        return v.incoming().size();
     }
 
     /** Returns outDegree(V). This is simply a synonym, intended for
@@ -293,25 +300,15 @@ public abstract class Graph<VLabel, ELabel> {
 
     /** Returns true iff there is an edge (U, V) in me with any label. */
     public boolean contains(Vertex u, Vertex v) {
-        for (Edge items : masterEdge) {
-            Vertex tmp = items.getV0();
-            Vertex tmp1 = items.getV1();
-            if (tmp.equals(u) && tmp1.equals(v)) {
-                return true;
-            }
-        }
-        return false;
+        return !u.edgesTo(v).isEmpty();
     }
 
     /** Returns true iff there is an edge (U, V) in me with label LABEL. */
     public boolean contains(Vertex u, Vertex v,
                             ELabel label) {
-        for (Edge items : masterEdge) {
-            Vertex tmp = items.getV0();
-            Vertex tmp1 = items.getV1();
+        for (Edge items : u.edgesTo(v)) {
             ELabel tmp2 = items.getLabel();
-            if (tmp.equals(u) && tmp1.equals(v)
-                && tmp2.equals(label)) {
+            if (tmp2 == null ? label == null : tmp2.equals(label)) {
                 return true;
             }
         }
@@ -322,7 +319,9 @@ public abstract class Graph<VLabel, ELabel> {
      *  incident edges. */
     public Vertex add(VLabel label) {
         Vertex protoV = new Vertex(label);
+        protoV.index = masterVert.size();
         masterVert.add(protoV);
+        protoV.setMember(true);
         return protoV;
     }
 
@@ -332,19 +331,19 @@ public abstract class Graph<VLabel, ELabel> {
     public Edge add(Vertex from,
                     Vertex to,
                     ELabel label) {
-        if (masterVert.contains(from)
-                && masterVert.contains(to)) {
+        if (from != null && to != null
+            && from.memberOf(this) && to.memberOf(this)) {
             if (isDirected()) {
                 Edge protoE = new Edge(from, to, label);
-                masterEdge.add(protoE);
+                link(protoE);
                 from.partner(to);
                 to.predpartner(from);
                 return protoE;
             } else {
                 Edge protoE = new Edge(from, to, label);
                 Edge protoE2 = new Edge(to, from, label);
-                masterEdge.add(protoE);
-                masterEdge.add(protoE2);
+                link(protoE);
+                link(protoE2);
                 from.partner(to);
                 to.partner(from);
                 return protoE;
@@ -361,70 +360,95 @@ public abstract class Graph<VLabel, ELabel> {
      *  (leaves FROM and enters TO). */
     public Edge add(Vertex from,
                     Vertex to) {
-        if (masterVert.contains(from)
-                && masterVert.contains(to)) {
-            if (isDirected()) {
-                Edge protoE = new Edge(from, to, null);
-                masterEdge.add(protoE);
-                from.partner(to);
-                to.predpartner(from);
-                return protoE;
-            } else {
-                Edge protoE = new Edge(from, to, null);
-                Edge protoE2 = new Edge(to, from, null);
-                masterEdge.add(protoE);
-                masterEdge.add(protoE2);
-                from.partner(to);
-                to.partner(from);
-                return protoE;
-            }
-        } else {
-            System.err.println("vertex doesn't exist"
-                + " to create edge.");
-            return null;
+        return add(from, to, null);
+    }
+
+    /** Adds E to masterEdge and to the adjacency of both of its ends. */
+    void link(Edge e) {
+        e.index = masterEdge.size();
+        masterEdge.add(e);
+        e.getV0().attachOut(e);
+        e.getV1().attachIn(e);
+    }
+
+    /** Removes E from the adjacency of both of its ends, and undoes
+     *  the vertex bookkeeping that add did for it.  Does not touch
+     *  masterEdge. */
+    void unlink(Edge e) {
+        Vertex v0 = e.getV0();
+        Vertex v1 = e.getV1();
+        v0.detachOut(e);
+        v1.detachIn(e);
+        v0.unpartner(v1);
+        if (isDirected()) {
+            v1.unpredpartner(v0);
         }
     }
 
-    /** Remove V and all adjacent edges, if present. */
-    public void remove(Vertex v) {
-        if (masterVert.contains(v)) {
-            masterVert.remove(v);
-            for (Iterator<Edge> iterator
-                    = masterEdge.iterator(); iterator.hasNext();) {
-                Edge tempEdge = iterator.next();
-                Vertex tmp = tempEdge.getV0();
-                Vertex tmp1 = tempEdge.getV1();
-                if (tmp.equals(v) || tmp1.equals(v)) {
-                    iterator.remove();
-                }
+    /** Unlinks every edge in DOOMED and clears their places in
+     *  masterEdge, each in constant time. */
+    void unlinkAll(List<Edge> doomed) {
+        for (Edge e : doomed) {
+            unlink(e);
+            masterEdge.set(e.index, null);
+            deadEdge += 1;
+        }
+        if (2 * deadEdge > masterEdge.size()) {
+            compactEdges();
+        }
+    }
+
+    /** Closes the gaps that removed vertices left in masterVert, keeping
+     *  the others in order.  Called once the gaps outnumber the
+     *  vertices, or before masterVert is read, so the work is paid
+     *  for by the removals. */
+    private void compactVertices() {
+        if (deadVert == 0) {
+            return;
+        }
+        int k = 0;
+        for (Vertex v : masterVert) {
+            if (v != null) {
+                v.index = k;
+                masterVert.set(k, v);
+                k += 1;
             }
-            adjacencyCleaner(v);
         }
+        masterVert.subList(k, masterVert.size()).clear();
+        deadVert = 0;
     }
 
-    /** Function that cleans up shadow adjacencies and
-     *  takes in the vertex INPUT. */
-    void adjacencyCleaner(Vertex input) {
-        for (Vertex items : masterVert) {
-            items.scrubber(input);
-            items.scrubber2(input);
+    /** Closes the gaps that removed edges left in masterEdge, as
+     *  compactVertices does for masterVert. */
+    private void compactEdges() {
+        if (deadEdge == 0) {
+            return;
+        }
+        int k = 0;
+        for (Edge e : masterEdge) {
+            if (e != null) {
+                e.index = k;
+                masterEdge.set(k, e);
+                k += 1;
+            }
         }
+        masterEdge.subList(k, masterEdge.size()).clear();
+        deadEdge = 0;
     }
 
-    /** Function that cleans up particulars only for
-     *  particular specified vertex. Takes in the vertex TARGET
-     *  , the one chosen for removal and the vertex INPUT, the
-     *  vertex that will be removed from the target. Takes in the
-     *  string DECIDE. */
-    void adjacencyCleaner(Vertex input, Vertex target, String decide) {
-        for (Vertex items : masterVert) {
-            if (items.equals(target)) {
-                if (decide.equals("com")) {
-                    items.scrubber(input);
-                } else if (decide.equals("pred")) {
-                    items.scrubber2(input);
-                }
+    /** Remove V and all adjacent edges, if present. */
+    public void remove(Vertex v) {
+        if (v.memberOf(this)) {
+            masterVert.set(v.index, null);
+            deadVert += 1;
+            if (2 * deadVert > masterVert.size()) {
+                compactVertices();
             }
+            v.setMember(false);
+            LinkedHashSet<Edge> doomed
+                = new LinkedHashSet<Edge>(v.outgoing());
+            doomed.addAll(v.incoming());
+            unlinkAll(new ArrayList<Edge>(doomed));
         }
     }
 
@@ -433,156 +457,47 @@ public abstract class Graph<VLabel, ELabel> {
     public void remove(Edge e) {
         Vertex v0 = e.getV0();
         Vertex v1 = e.getV1();
-        if (isDirected()) {
-            for (Iterator<Edge> iterator
-                    = masterEdge.iterator(); iterator.hasNext();) {
-                Edge tempEdge = iterator.next();
-                if (e.equals(tempEdge)) {
-                    iterator.remove();
-                }
-            }
-            adjacencyCleaner(v1, v0, "com");
-            adjacencyCleaner(v0, v1, "pred");
-        } else {
-            for (Iterator<Edge> iterator
-                    = masterEdge.iterator(); iterator.hasNext();) {
-                Edge tempEdge = iterator.next();
-                Vertex erasev0 = tempEdge.getV0();
-                Vertex erasev1 = tempEdge.getV1();
-                if (e.equals(tempEdge)) {
-                    iterator.remove();
-                }
-                if (erasev0.equals(v1) && erasev1.equals(v0)) {
-                    iterator.remove();
+        ArrayList<Edge> doomed = new ArrayList<Edge>();
+        if (v0.edgesTo(v1).contains(e)) {
+            doomed.add(e);
+        }
+        if (!isDirected()) {
+            for (Edge twin : v1.edgesTo(v0)) {
+                if (twin != e) {
+                    doomed.add(twin);
                 }
             }
-            adjacencyCleaner(v1, v0, "com");
-            adjacencyCleaner(v0, v1, "com");
         }
+        unlinkAll(doomed);
     }
 
     /** Remove all edges from V1 to V2 from me, if present.  The result is
      *  undefined if V1 and V2 are not among my vertices. */
     public void remove(Vertex v1, Vertex v2) {
-        if (isDirected()) {
-            for (Iterator<Edge> iterator
-                    = masterEdge.iterator(); iterator.hasNext();) {
-                Edge tempEdge = iterator.next();
-                Vertex erasev0 = tempEdge.getV0();
-                Vertex erasev1 = tempEdge.getV1();
-                if (erasev0.equals(v1) && erasev1.equals(v2)) {
-                    iterator.remove();
-                }
-            }
-            adjacencyCleaner(v2, v1, "com");
-            adjacencyCleaner(v1, v2, "pred");
-        } else {
-            for (Iterator<Edge> iterator
-                    = masterEdge.iterator(); iterator.hasNext();) {
-                Edge tempEdge = iterator.next();
-                Vertex erasev0 = tempEdge.getV0();
-                Vertex erasev1 = tempEdge.getV1();
-                if (erasev0.equals(v1) && erasev1.equals(v2)) {
-                    iterator.remove();
-                }
-                if (erasev0.equals(v2) && erasev1.equals(v1)) {
-                    iterator.remove();
-                }
-            }
-            adjacencyCleaner(v2, v1, "com");
-            adjacencyCleaner(v1, v2, "com");
+        ArrayList<Edge> doomed = new ArrayList<Edge>(v1.edgesTo(v2));
+        if (!isDirected() && v1 != v2) {
+            doomed.addAll(v2.edgesTo(v1));
         }
+        unlinkAll(doomed);
     }
 
     /** Method takes in two vertices and returns the
      *  edge that corresponds with the two vertices.
-     *  Takes in V0 and V1. */
+     *  Takes in V0 and V1.  Of several such edges, returns
+     *  the one added last. */
     Edge getEdge(Vertex v0, Vertex v1) {
-        Stack<Edge> hold
-            = new Stack<Edge>();
-        for (Edge items : masterEdge) {
-            Vertex tmp0 = items.getV0();
-            Vertex tmp1 = items.getV1();
-            if (tmp0.equals(v0) && tmp1.equals(v1)) {
-                hold.push(items);
-            }
-        }
+        List<Edge> hold = v0.edgesTo(v1);
         if (hold.size() > 0) {
-            return smallestEdge(hold);
+            return hold.get(hold.size() - 1);
         } else {
             System.err.print("no edge found");
             return null;
         }
     }
 
-    /** Determines which edge is the smallest. Takes in INPUT. Returns
-     *  an edge. */
-    Edge smallestEdge(Stack<Edge> input) {
-        if (input.size() == 1 || weights == null) {
-            return input.pop();
-        } else {
-            Edge start;
-            start = input.pop();
-            while (!input.empty()) {
-                Edge comp = input.pop();
-                double tmp = weights.weight(start.getLabel());
-                double tmp2 = weights.weight(comp.getLabel());
-                if (tmp >= tmp2) {
-                    start = comp;
-                }
-            }
-            return start;
-        }
-    }
-
-    /** Thing that holds the eweighter. */
-    private Weighting<? super ELabel> weights;
-
-    /** Reconstructor of the vertices. Takes in the HashMap CAMEFROM
-     *  and the vertex CURRENTNODE. Returns a stack. */
-    Stack<Vertex> reconstruct(HashMap<Vertex, Vertex> camefrom,
-        Vertex currentNode) {
-        stack.push(currentNode);
-        return reconstrHelp(camefrom, currentNode);
-    }
-
-    /** Reconstructor of the vertices. Takes in the HashMap CAMEFROM
-     *  and the vertex CURRENTNODE. EWEIGHTER Returns a stack. */
-    Stack<Vertex> reconstruct(HashMap<Vertex, Vertex> camefrom,
-        Vertex currentNode, Weighting<? super ELabel> eweighter) {
-        stack.push(currentNode);
-        weights = eweighter;
-        return reconstrHelp(camefrom, currentNode);
-    }
-
-    /** Recursive Helper. Takes in the HashMap CAMEFROM and the vertex
-     *  CURRENTNODE. Returns the Stack<Vertex>. */
-    Stack<Vertex> reconstrHelp(HashMap<Vertex, Vertex> camefrom,
-        Vertex currentNode) {
-        if (camefrom.keySet().contains(currentNode)) {
-            stack.push(camefrom.get(currentNode));
-            return reconstrHelp(camefrom, camefrom.get(currentNode));
-        } else {
-            return stack;
-        }
-    }
-
-    /** List of Edge constructor and returns and ArrayList<Edge>. */
-    ArrayList<Edge> pathBuilder() {
-        bestPath.clear();
-        Vertex tmp;
-        tmp = stack.pop();
-        while (!stack.empty()) {
-            Vertex tmp1 = stack.pop();
-            Edge add = getEdge(tmp, tmp1);
-            bestPath.add(add);
-            tmp = tmp1;
-        }
-        return bestPath;
-    }
-
     /** Returns an Iterator over all vertices in arbitrary order. */
     public Iteration<Vertex> vertices() {
+        compactVertices();
         return Iteration.iteration(masterVert);
     }
 
@@ -604,6 +519,7 @@ public abstract class Graph<VLabel, ELabel> {
 
     /** Returns an iterator over all edges in me. */
     public Iteration<Edge> edges() {
+        compactEdges();
         if (!isDirected()) {
             LinkedList<Edge> faker = new LinkedList<Edge>(masterEdge);
             ArrayList<Edge> result = new ArrayList<Edge>();
@@ -620,27 +536,12 @@ public abstract class Graph<VLabel, ELabel> {
 
     /** Returns iterator over all outgoing edges from V. */
     public Iteration<Edge> outEdges(Vertex v) {
-        ArrayList<Edge> tempHold = new ArrayList<Edge>();
-        for (Edge items : masterEdge) {
-            Vertex tmp = items.getV0();
-            if (tmp.equals(v)) {
-                tempHold.add(items);
-            }
-        }
-        return Iteration.iteration(tempHold);
+        return Iteration.iteration(v.outgoing());
     }
 
     /** Returns iterator over all incoming edges to V. */
     public Iteration<Edge> inEdges(Vertex v) {
-        ArrayList<Edge> tempHold = new ArrayList<Edge>();
-        for (Edge items : masterEdge) {
-            Vertex tmp = items.getV1();
-            if (tmp.equals(v)) {
-                tempHold.add(items);
-            }
-        }
-        return Iteration.iteration(tempHold);
-
+        return Iteration.iteration(v.incoming());
     }
 
     /** Returns outEdges(V). This is a synonym typically used
@@ -674,7 +575,16 @@ public abstract class Graph<VLabel, ELabel> {
                 return comparator.compare(x1.getLabel(), x2.getLabel());
             }
         };
+        compactVertices();
+        compactEdges();
         Collections.sort(masterEdge, edge);
+        for (int k = 0; k < masterEdge.size(); k += 1) {
+            masterEdge.get(k).index = k;
+        }
+        for (Vertex v : masterVert) {
+            Collections.sort(v.outgoing(), edge);
+            Collections.sort(v.incoming(), edge);
+        }
     }
 
 }
@@ -5,6 +5,7 @@ import java.util.Comparator;
 import static org.junit.Assert.*;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.List;
 import graph.Graph.Vertex;
 import graph.Graph.Edge;
 
@@ -309,6 +310,94 @@ public class GraphTest {
         assertEquals(false, hold2.contains(v0));
     }
 
+    /** Checks that edge queries stay consistent with the
+     *  per-vertex adjacency across adds and removes. */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void adjacencyindex() {
+        DirectedGraph<String, Integer> g
+            = new DirectedGraph<String, Integer>();
+        Vertex v0 = g.add("v0");
+        Vertex v1 = g.add("v1");
+        Vertex v2 = g.add("v2");
+        Edge e0 = g.add(v0, v1, 5);
+        Edge e1 = g.add(v0, v1, 2);
+        Edge e2 = g.add(v1, v2, 1);
+        Edge e3 = g.add(v2, v0, 3);
+        assertEquals(2, g.outDegree(v0));
+        assertEquals(1, g.inDegree(v0));
+        assertEquals(2, g.inDegree(v1));
+        assertEquals(true, g.contains(v0, v1, 2));
+        assertEquals(false, g.contains(v1, v0));
+        assertEquals(e1, g.getEdge(v0, v1));
+        g.remove(e1);
+        assertEquals(e0, g.getEdge(v0, v1));
+        assertEquals(true, v0.getList("com").contains(v1));
+        g.remove(v1);
+        assertEquals(0, g.outDegree(v0));
+        assertEquals(0, g.inDegree(v2));
+        assertEquals(false, g.contains(v0, v1));
+        assertEquals(1, g.edgeSize());
+        assertEquals(null, g.add(v0, v1, 4));
+        assertEquals(null, g.add(null, v0, 4));
+        assertEquals(null, g.add(v2, null, 4));
+        Iteration<Graph<String, Integer>.Edge> in = g.inEdges(v0);
+        assertEquals(e3, in.next());
+        assertEquals(false, in.hasNext());
+    }
+
+    /** Checks that removals keep the order of the vertices and edges
+     *  that remain, in both kinds of graph. */
+    @Test
+    public void removalorder() {
+        DirectedGraph<Integer, Integer> g
+            = new DirectedGraph<Integer, Integer>();
+        UndirectedGraph<Integer, Integer> u
+            = new UndirectedGraph<Integer, Integer>();
+        ArrayList<Graph<Integer, Integer>.Vertex> vs
+            = new ArrayList<Graph<Integer, Integer>.Vertex>();
+        ArrayList<Graph<Integer, Integer>.Vertex> us
+            = new ArrayList<Graph<Integer, Integer>.Vertex>();
+        for (int i = 0; i < 8; i += 1) {
+            vs.add(g.add(i));
+            us.add(u.add(i));
+        }
+        ArrayList<Graph<Integer, Integer>.Edge> ues
+            = new ArrayList<Graph<Integer, Integer>.Edge>();
+        for (int i = 0; i < 7; i += 1) {
+            g.add(vs.get(i), vs.get(i + 1), i);
+            ues.add(u.add(us.get(i), us.get(i + 1), i));
+        }
+        g.remove(vs.get(1));
+        assertEquals(7, g.vertexSize());
+        assertEquals(5, g.edgeSize());
+        g.remove(vs.get(4));
+        g.remove(vs.get(6));
+        assertEquals(5, g.vertexSize());
+        assertEquals(1, g.edgeSize());
+        ArrayList<Integer> labels = new ArrayList<Integer>();
+        for (Graph<Integer, Integer>.Vertex v : g.vertices()) {
+            labels.add(v.getLabel());
+        }
+        assertEquals("[0, 2, 3, 5, 7]", labels.toString());
+        assertEquals(2, (int) g.edges().next().getLabel());
+        g.add(vs.get(7), vs.get(0), 9);
+        labels.clear();
+        for (Graph<Integer, Integer>.Edge e : g.edges()) {
+            labels.add(e.getLabel());
+        }
+        assertEquals("[2, 9]", labels.toString());
+
+        u.remove(ues.get(2));
+        u.remove(us.get(5));
+        assertEquals(4, u.edgeSize());
+        labels.clear();
+        for (Graph<Integer, Integer>.Edge e : u.edges()) {
+            labels.add(e.getLabel());
+        }
+        assertEquals("[0, 1, 3, 6]", labels.toString());
+    }
+
     /** Test for orderingedges. */
     @Test
     @SuppressWarnings("unchecked")
@@ -384,6 +473,269 @@ public class GraphTest {
         Edge e4 = g.add(A, C, 5);
         Edge e5 = g.add(A, G, 12);
         Edge e6 = g.add(C, G, 3);
-        Graphs.shortestPath(g, S, G, Graphs.ZERO_DISTANCER, VERTEX, EDGE);
+        List<Graph<Integer, Integer>.Edge> path
+            = Graphs.shortestPath(g, S, G, Graphs.ZERO_DISTANCER,
+                                  VERTEX, EDGE);
+        assertEquals(4, path.size());
+        assertEquals(e0, path.get(0));
+        assertEquals(e2, path.get(1));
+        assertEquals(e3, path.get(2));
+        assertEquals(e6, path.get(3));
+        assertEquals(null, Graphs.shortestPath(g, G, S,
+            Graphs.ZERO_DISTANCER, VERTEX, EDGE));
+    }
+
+    /** Bidirectional search agrees with A* and handles trivial and
+     *  unreachable requests. */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void bidirectional() {
+        DirectedGraph<Integer, Integer> g
+            = new DirectedGraph<Integer, Integer>();
+        Vertex S = g.add(7);
+        Vertex A = g.add(6);
+        Vertex B = g.add(4);
+        Vertex C = g.add(2);
+        Vertex G = g.add(0);
+        Edge e0 = g.add(S, A, 1);
+        Edge e1 = g.add(S, B, 4);
+        Edge e2 = g.add(A, B, 2);
+        Edge e3 = g.add(B, C, 2);
+        Edge e4 = g.add(A, C, 5);
+        Edge e5 = g.add(A, G, 12);
+        Edge e6 = g.add(C, G, 3);
+        List<Graph<Integer, Integer>.Edge> path
+            = Graphs.bidirectionalPath(g, S, G, Graphs.ZERO_DISTANCER, EDGE);
+        assertEquals(4, path.size());
+        assertEquals(e0, path.get(0));
+        assertEquals(e2, path.get(1));
+        assertEquals(e3, path.get(2));
+        assertEquals(e6, path.get(3));
+        assertEquals(0, Graphs.bidirectionalPath(g, S, S,
+            Graphs.ZERO_DISTANCER, EDGE).size());
+        assertEquals(null, Graphs.bidirectionalPath(g, G, S,
+            Graphs.ZERO_DISTANCER, EDGE));
+        CompactGraph<Integer, Integer> c
+            = new CompactGraph<Integer, Integer>(g, EDGE);
+        List<Graph<Integer, Integer>.Edge> same
+            = Graphs.bidirectionalPath(c, c.id(S), c.id(G),
+                                       Graphs.ZERO_DISTANCER);
+        assertEquals(path, same);
+    }
+
+    /** Returns a Distancer that takes the difference of two Integer
+     *  labels, divided by SCALE. */
+    static Distancer<Integer> labelDistancer(final double scale) {
+        return new Distancer<Integer>() {
+            @Override
+            public double dist(Integer v0, Integer v1) {
+                return Math.abs(v0 - v1) / scale;
+            }
+        };
+    }
+
+    /** Returns the total weight of PATH. */
+    static int weight(List<Graph<Integer, Integer>.Edge> path) {
+        int total = 0;
+        for (Graph<Integer, Integer>.Edge e : path) {
+            total += e.getLabel();
+        }
+        return total;
+    }
+
+    /** Bidirectional search guided by a nonzero heuristic finds paths
+     *  as short as Dijkstra's, on the object graph and on its compact
+     *  copy.  On the sample graph, the labels are consistent estimates
+     *  of the distance to its last vertex, several of them exact along
+     *  an edge, so the search meets ties in its stopping rule; on a
+     *  random graph, the scaled label difference is consistent because
+     *  every edge weighs at least 1. */
+    @Test
+    public void bidirectionalHeuristic() {
+        DirectedGraph<Integer, Integer> g = CompactGraphTest.sample();
+        CompactGraph<Integer, Integer> c
+            = new CompactGraph<Integer, Integer>(g, EDGE);
+        checkBidirectional(g, c, labelDistancer(1), 1);
+
+        int n = 300;
+        g = CompactGraphTest.random(64, n);
+        c = new CompactGraph<Integer, Integer>(g, EDGE);
+        checkBidirectional(g, c, labelDistancer(n), 7);
+    }
+
+    /** Checks bidirectionalPath with H between every pair of vertices
+     *  of G, and of C, a compact copy of G, whose numbers are multiples
+     *  of STEP, against shortestPath with no heuristic. */
+    private void checkBidirectional(DirectedGraph<Integer, Integer> g,
+                                    CompactGraph<Integer, Integer> c,
+                                    Distancer<Integer> h, int step) {
+        int n = c.vertexSize();
+        for (int s = 0; s < n; s += step) {
+            for (int t = 0; t < n; t += step) {
+                List<Graph<Integer, Integer>.Edge> expected
+                    = Graphs.shortestPath(c, s, t, Graphs.ZERO_DISTANCER);
+                List<Graph<Integer, Integer>.Edge> onGraph
+                    = Graphs.bidirectionalPath(g, c.vertex(s), c.vertex(t),
+                                               h, EDGE);
+                List<Graph<Integer, Integer>.Edge> onCompact
+                    = Graphs.bidirectionalPath(c, s, t, h);
+                if (expected == null) {
+                    assertEquals(null, onGraph);
+                    assertEquals(null, onCompact);
+                } else {
+                    assertEquals(weight(expected), weight(onGraph));
+                    assertEquals(weight(expected), weight(onCompact));
+                    if (!onCompact.isEmpty()) {
+                        assertEquals(c.vertex(s), onCompact.get(0).getV0());
+                        assertEquals(c.vertex(t),
+                            onCompact.get(onCompact.size() - 1).getV1());
+                    }
+                }
+            }
+        }
+    }
+
+    /** A reused SearchContext answers query after query, and searches
+     *  with their own contexts can share a graph across threads. */
+    @Test
+    public void searchContext() throws InterruptedException {
+        final DirectedGraph<Integer, Integer> g = CompactGraphTest.sample();
+        final CompactGraph<Integer, Integer> c
+            = new CompactGraph<Integer, Integer>(g, EDGE);
+        final int[] expected = { 0, 1, 3, 5, 8 };
+        SearchContext<Integer, Integer> context
+            = new SearchContext<Integer, Integer>();
+        for (int i = 0; i < 3; i += 1) {
+            for (int v = 0; v < 5; v += 1) {
+                Graphs.shortestPath(g, c.vertex(0), c.vertex(v),
+                                    Graphs.ZERO_DISTANCER, EDGE, context);
+                assertEquals(expected[v], context.distance(c.vertex(v)), 0);
+                Graphs.shortestPath(c, 0, v, Graphs.ZERO_DISTANCER, context);
+                assertEquals(expected[v], context.distance(v), 0);
+            }
+        }
+        final boolean[] failed = new boolean[1];
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t += 1) {
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    SearchContext<Integer, Integer> mine
+                        = new SearchContext<Integer, Integer>();
+                    for (int i = 0; i < 2000; i += 1) {
+                        int v = i % 5;
+                        List<Graph<Integer, Integer>.Edge> p
+                            = Graphs.bidirectionalPath(c, 0, v,
+                                Graphs.ZERO_DISTANCER, mine);
+                        Graphs.shortestPath(g, c.vertex(0), c.vertex(v),
+                            Graphs.ZERO_DISTANCER, EDGE, mine);
+                        int total = 0;
+                        for (Graph<Integer, Integer>.Edge e : p) {
+                            total += e.getLabel();
+                        }
+                        if (total != expected[v]
+                            || mine.distance(c.vertex(v)) != expected[v]) {
+                            failed[0] = true;
+                        }
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertFalse(failed[0]);
+    }
+
+    /** A label that is its own weight. */
+    static class Box implements Weightable {
+        /** A box holding W. */
+        Box(double w) {
+            _w = w;
+        }
+
+        @Override
+        public double weight() {
+            return _w;
+        }
+
+        @Override
+        public void setWeight(double w) {
+            _w = w;
+        }
+
+        /** My weight. */
+        private double _w;
+    }
+
+    /** A* over Weightable and Weighted labels, which also records the
+     *  distance of each vertex on the path. */
+    @Test
+    public void weightableShort() {
+        UndirectedGraph<Box, Box> g = new UndirectedGraph<Box, Box>();
+        Graph<Box, Box>.Vertex a = g.add(new Box(0));
+        Graph<Box, Box>.Vertex b = g.add(new Box(0));
+        Graph<Box, Box>.Vertex c = g.add(new Box(0));
+        Graph<Box, Box>.Vertex d = g.add(new Box(0));
+        g.add(b, a, new Box(2));
+        g.add(b, c, new Box(2));
+        g.add(a, c, new Box(5));
+        g.add(d, c, new Box(1));
+        List<Graph<Box, Box>.Edge> path
+            = Graphs.shortestPath(g, a, d, Graphs.ZERO_DISTANCER);
+        assertEquals(3, path.size());
+        assertEquals(a, path.get(0).getV0());
+        assertEquals(b, path.get(0).getV1());
+        assertEquals(d, path.get(2).getV1());
+        assertEquals(4.0, c.getLabel().weight(), 0);
+        assertEquals(5.0, d.getLabel().weight(), 0);
+    }
+
+    /** Finding cycles, all of them or only those reachable from given
+     *  vertices, in directed and undirected graphs. */
+    @Test
+    public void findCycle() {
+        DirectedGraph<String, String> g = new DirectedGraph<String, String>();
+        Graph<String, String>.Vertex a = g.add("a"), b = g.add("b"),
+            c = g.add("c"), d = g.add("d"), e = g.add("e");
+        g.add(a, b);
+        g.add(a, d);
+        g.add(b, d);
+        g.add(d, e);
+        assertNull(Graphs.findCycle(g));
+        g.add(c, d);
+        g.add(e, c);
+        List<Graph<String, String>.Vertex> cycle = Graphs.findCycle(g);
+        assertEquals(3, cycle.size());
+        for (int i = 0; i < cycle.size(); i += 1) {
+            assertTrue(g.contains(cycle.get(i),
+                                  cycle.get((i + 1) % cycle.size())));
+        }
+        ArrayList<Graph<String, String>.Vertex> roots
+            = new ArrayList<Graph<String, String>.Vertex>();
+        roots.add(b);
+        assertEquals(3, Graphs.findCycle(g, roots).size());
+        g.remove(d, e);
+        assertNull(Graphs.findCycle(g));
+        g.add(e, e);
+        assertNull(Graphs.findCycle(g, roots));
+        assertEquals(1, Graphs.findCycle(g).size());
+
+        UndirectedGraph<String, String> u
+            = new UndirectedGraph<String, String>();
+        a = u.add("a");
+        b = u.add("b");
+        c = u.add("c");
+        u.add(a, b);
+        u.add(b, c);
+        assertNull(Graphs.findCycle(u));
+        u.add(c, a);
+        assertEquals(3, Graphs.findCycle(u).size());
+        u.remove(c, a);
+        u.add(b, c);
+        cycle = Graphs.findCycle(u);
+        assertEquals(2, cycle.size());
+        assertTrue(cycle.contains(b) && cycle.contains(c));
     }
 }
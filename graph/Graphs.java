@@ -1,11 +1,12 @@
 package graph;
 
 import java.util.List;
-import java.util.PriorityQueue;
-import java.util.Stack;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 /** Assorted graph algorithms.
@@ -39,51 +40,12 @@ public final class Graphs {
                  Distancer<? super VLabel> h,
                  Weighter<? super VLabel> vweighter,
                  Weighting<? super ELabel> eweighter) {
-        Comparator<Graph<VLabel, ELabel>.Vertex> flip = orderVert(vweighter);
-        ArrayList<Graph<VLabel, ELabel>.Vertex> closedset
-            = new ArrayList<Graph<VLabel, ELabel>.Vertex>();
-        PriorityQueue<Graph<VLabel, ELabel>.Vertex> openset
-            = new PriorityQueue<Graph<VLabel, ELabel>.Vertex>(9, flip);
-        HashMap<Graph<VLabel, ELabel>.Vertex, Graph<VLabel, ELabel>.Vertex>
-            camefrom = new HashMap<Graph<VLabel, ELabel>.Vertex,
-            Graph<VLabel, ELabel>.Vertex>();
-        HashMap<Graph<VLabel, ELabel>.Vertex, Double> gscore
-            = new HashMap<Graph<VLabel, ELabel>.Vertex, Double>();
-        openset.add(V0);
-        gscore.put(V0, (double) 0);
-        vweighter.setWeight(V0.getLabel(), gscore.get(V0)
-            + h.dist(V0.getLabel(), V1.getLabel()));
-        while (openset.size() != 0) {
-            Graph<VLabel, ELabel>.Vertex current = openset.poll();
-            if (current.equals(V1)) {
-                G.reconstruct(camefrom, current, eweighter);
-                return G.pathBuilder();
-            }
-            closedset.add(current);
-            for (Iteration<Graph<VLabel, ELabel>.Vertex> iterator
-                    = G.neighbors(current); iterator.hasNext();) {
-                Graph<VLabel, ELabel>.Vertex neighbor = iterator.next();
-                Graph<VLabel, ELabel>.Edge chosenPath
-                    = G.getEdge(current, neighbor);
-                Double tmpgscore = gscore.get(current)
-                    + eweighter.weight(chosenPath.getLabel());
-                Double tmpfscore = tmpgscore
-                    + h.dist(neighbor.getLabel(), V1.getLabel());
-                if (closedset.contains(neighbor)
-                    && tmpfscore >= vweighter.weight(neighbor.getLabel())) {
-                    continue;
-                } else if (!openset.contains(neighbor)
-                    || tmpfscore < vweighter.weight(neighbor.getLabel())) {
-                    camefrom.put(neighbor, current);
-                    gscore.put(neighbor, tmpgscore);
-                    vweighter.setWeight(neighbor.getLabel(), tmpfscore);
-                    if (!openset.contains(neighbor)) {
-                        openset.add(neighbor);
-                    }
-                }
-            }
-        }
-        return null;
+        SearchContext<VLabel, ELabel> context
+            = new SearchContext<VLabel, ELabel>();
+        List<Graph<VLabel, ELabel>.Edge> result
+            = shortestPath(G, V0, V1, h, eweighter, context);
+        context.report(vweighter);
+        return result;
     }
 
     /** Returns a path from V0 to V1 in G of minimum weight, according
@@ -114,160 +76,522 @@ public final class Graphs {
                  Graph<VLabel, ELabel>.Vertex V0,
                  Graph<VLabel, ELabel>.Vertex V1,
                  Distancer<? super VLabel> h) {
-        Comparator<Graph<VLabel, ELabel>.Vertex> flip = orderVert();
-        ArrayList<Graph<VLabel, ELabel>.Vertex> closedset
-            = new ArrayList<Graph<VLabel, ELabel>.Vertex>();
-        PriorityQueue<Graph<VLabel, ELabel>.Vertex> openset
-            = new PriorityQueue<Graph<VLabel, ELabel>.Vertex>(9, flip);
-        HashMap<Graph<VLabel, ELabel>.Vertex, Graph<VLabel, ELabel>.Vertex>
-            camefrom = new HashMap<Graph<VLabel, ELabel>.Vertex,
-            Graph<VLabel, ELabel>.Vertex>();
-        HashMap<Graph<VLabel, ELabel>.Vertex, Double> gscore
-            = new HashMap<Graph<VLabel, ELabel>.Vertex, Double>();
-        openset.add(V0);
-        gscore.put(V0, (double) 0);
-        V0.getLabel().setWeight(gscore.get(V0)
-            + h.dist(V0.getLabel(), V1.getLabel()));
-        while (openset.size() != 0) {
-            Graph<VLabel, ELabel>.Vertex current = openset.poll();
-            if (current.equals(V1)) {
-                return pathBuilderx(G, G.reconstruct(camefrom, current));
+        return shortestPath(G, V0, V1, h, LABEL_WEIGHTER,
+                            CompactGraph.LABEL_WEIGHTS);
+    }
+
+    /** Returns a path from V0 to V1 in G of minimum weight according to
+     *  EWEIGHTER, or null if there is none, found by A* search with
+     *  heuristic H as for the 6-argument version of shortestPath.
+     *  Instead of setting vertex weights, leaves the weight of the best
+     *  path found to each vertex in CONTEXT, which holds all of the
+     *  search's state: neither G nor its labels are modified, so
+     *  searches with different contexts may run concurrently.
+     *  Vertices are numbered in the order the search first reaches them,
+     *  so the fringe is an IndexedHeap with true decrease-key.  Each
+     *  vertex is expanded at most once, which is correct because H is
+     *  assumed to satisfy property b.  VLABEL and ELABEL are the label
+     *  types. */
+    public static <VLabel, ELabel> List<Graph<VLabel, ELabel>.Edge>
+    shortestPath(Graph<VLabel, ELabel> G,
+                 Graph<VLabel, ELabel>.Vertex V0,
+                 Graph<VLabel, ELabel>.Vertex V1,
+                 Distancer<? super VLabel> h,
+                 Weighting<? super ELabel> eweighter,
+                 SearchContext<VLabel, ELabel> context) {
+        VLabel goal = V1.getLabel();
+        IndexedHeap openset = context.open(0);
+        context.begin(0);
+        int start = context.number(V0);
+        context.reach(0, start, 0.0, null);
+        openset.put(start, h.dist(V0.getLabel(), goal));
+        while (!openset.isEmpty()) {
+            int current = openset.poll();
+            Graph<VLabel, ELabel>.Vertex vertex = context.vertex(current);
+            if (vertex == V1) {
+                return edgePath(context, current);
             }
-            closedset.add(current);
-            for (Iteration<Graph<VLabel, ELabel>.Vertex> iterator
-                    = G.neighbors(current); iterator.hasNext();) {
-                Graph<VLabel, ELabel>.Vertex neighbor = iterator.next();
-                Graph<VLabel, ELabel>.Edge chosenPath
-                    = getEdgex(current, neighbor, G);
-                Double tmpgscore = gscore.get(current)
-                    + (chosenPath.getLabel()).weight();
-                Double tmpfscore = tmpgscore
-                    + h.dist(neighbor.getLabel(), V1.getLabel());
-                if (closedset.contains(neighbor)
-                    && tmpfscore >= neighbor.getLabel().weight()) {
+            context.close(0, current);
+            for (Graph<VLabel, ELabel>.Edge e : G.outEdges(vertex)) {
+                Graph<VLabel, ELabel>.Vertex neighbor = e.getV1();
+                int next = context.number(neighbor);
+                if (context.closed(0, next)) {
                     continue;
-                } else if (!openset.contains(neighbor)
-                    || tmpfscore < neighbor.getLabel().weight()) {
-                    camefrom.put(neighbor, current);
-                    gscore.put(neighbor, tmpgscore);
-                    neighbor.getLabel().setWeight(tmpfscore);
-                    if (!openset.contains(neighbor)) {
-                        openset.add(neighbor);
-                    }
+                }
+                double tmpgscore = context.gscore(0, current)
+                    + eweighter.weight(e.getLabel());
+                if (tmpgscore < context.gscore(0, next)) {
+                    context.reach(0, next, tmpgscore, e);
+                    openset.put(next, tmpgscore
+                        + h.dist(neighbor.getLabel(), goal));
                 }
             }
         }
         return null;
     }
 
-    /** Comparator takes in the weighter VWEIGHTER to determine and returns
-     *  a comparator so priority queue can have something to compare with.
-     *  VLABEL and ELABEL are the types. */
-    static <VLabel, ELabel>
-    Comparator<Graph<VLabel, ELabel>.Vertex>
-    orderVert(final Weighter<? super VLabel> vweighter) {
-        Comparator<Graph<VLabel, ELabel>.Vertex> change
-            = new Comparator<Graph<VLabel, ELabel>.Vertex>() {
-                @Override
-                public int compare(Graph<VLabel, ELabel>.Vertex x1,
-                    Graph<VLabel, ELabel>.Vertex x2) {
-                    return Double.compare(vweighter.weight(x1.getLabel()),
-                        vweighter.weight(x2.getLabel()));
+    /** Returns a path of minimum weight from the vertex numbered V0 to
+     *  the vertex numbered V1 in G, as a list of edges of the graph G
+     *  was copied from.  VLABEL and ELABEL are the types of vertex and
+     *  edge labels.  H must satisfy the same two properties as for the
+     *  other versions of shortestPath.  Edge weights are the ones G
+     *  computed when it was made, and no vertex weights are set.  If V1
+     *  is unreachable from V0, returns null. */
+    public static <VLabel, ELabel> List<Graph<VLabel, ELabel>.Edge>
+    shortestPath(CompactGraph<VLabel, ELabel> G, int V0, int V1,
+                 Distancer<? super VLabel> h) {
+        return shortestPath(G, V0, V1, h,
+                            new SearchContext<VLabel, ELabel>());
+    }
+
+    /** Returns a path of minimum weight from the vertex numbered V0 to
+     *  the vertex numbered V1 in G, as for the 4-argument version, but
+     *  keeping the search's state in CONTEXT, where the weights of the
+     *  best paths found to each vertex are left.  Searches with
+     *  different contexts may run concurrently, and reusing a context
+     *  saves allocating arrays the size of G for each search.  VLABEL
+     *  and ELABEL are the types of vertex and edge labels. */
+    public static <VLabel, ELabel> List<Graph<VLabel, ELabel>.Edge>
+    shortestPath(CompactGraph<VLabel, ELabel> G, int V0, int V1,
+                 Distancer<? super VLabel> h,
+                 SearchContext<VLabel, ELabel> context) {
+        VLabel goal = G.label(V1);
+        IndexedHeap openset = context.open(0);
+        context.begin(G.vertexSize());
+        context.reach(0, V0, 0.0, -1, -1);
+        openset.put(V0, h.dist(G.label(V0), goal));
+        while (!openset.isEmpty()) {
+            int current = openset.poll();
+            if (current == V1) {
+                return compactPath(G, context, V1);
+            }
+            double gscore = context.gscore(0, current);
+            for (int k = G.firstOut(current); k < G.endOut(current); k += 1) {
+                int neighbor = G.target(k);
+                double tmpgscore = gscore + G.weight(k);
+                if (tmpgscore < context.gscore(0, neighbor)) {
+                    context.reach(0, neighbor, tmpgscore, current, k);
+                    openset.put(neighbor, tmpgscore
+                        + h.dist(G.label(neighbor), goal));
                 }
-            };
-        return change;
+            }
+        }
+        return null;
     }
 
-    /** VLABEL ELABEL.
-     *  List of Edge constructor and returns and ArrayList<Edge>. Takes
-     *  in the graph GRAPHX and stack STACK. */
+    /** Returns the edges of G, in order, on the path that the forward
+     *  search in CONTEXT followed to the vertex numbered LAST.  VLABEL
+     *  and ELABEL are the label types. */
+    static <VLabel, ELabel> ArrayList<Graph<VLabel, ELabel>.Edge>
+    compactPath(CompactGraph<VLabel, ELabel> G,
+                SearchContext<VLabel, ELabel> context, int last) {
+        ArrayList<Graph<VLabel, ELabel>.Edge> bestPath
+            = new ArrayList<Graph<VLabel, ELabel>.Edge>();
+        for (int v = last; context.camefrom(0, v) >= 0;
+             v = context.camefrom(0, v)) {
+            bestPath.add(G.edge(context.via(0, v)));
+        }
+        Collections.reverse(bestPath);
+        return bestPath;
+    }
 
-    static <VLabel extends Weightable, ELabel extends Weighted>
-    ArrayList<Graph<VLabel, ELabel>.Edge>
-    pathBuilderx(Graph<VLabel, ELabel> graphx,
-                Stack<Graph<VLabel, ELabel>.Vertex> stack) {
+    /** Returns the edges, in order, of the path that the forward search
+     *  in CONTEXT followed to the vertex numbered LAST of an object
+     *  graph.  VLABEL and ELABEL are the label types. */
+    static <VLabel, ELabel> ArrayList<Graph<VLabel, ELabel>.Edge>
+    edgePath(SearchContext<VLabel, ELabel> context, int last) {
         ArrayList<Graph<VLabel, ELabel>.Edge> bestPath
             = new ArrayList<Graph<VLabel, ELabel>.Edge>();
-        Graph<VLabel, ELabel>.Vertex tmp;
-        tmp = stack.pop();
-        while (!stack.empty()) {
-            Graph<VLabel, ELabel>.Vertex tmp1 = stack.pop();
-            Graph<VLabel, ELabel>.Edge add = getEdgex(tmp, tmp1, graphx);
-            bestPath.add(add);
-            tmp = tmp1;
+        for (Graph<VLabel, ELabel>.Edge e = context.edge(0, last); e != null;
+             e = context.edge(0, context.number(e.getV0()))) {
+            bestPath.add(e);
         }
+        Collections.reverse(bestPath);
         return bestPath;
     }
 
-    /** Method takes in two vertices and returns the
-     *  edge that corresponds with the two vertices.
-     *  Takes in V0 and V1. Takes in VLABEL ELABEL GRAPH. */
-    static <VLabel extends Weightable, ELabel extends Weighted>
-    Graph<VLabel, ELabel>.Edge getEdgex(Graph<VLabel, ELabel>.Vertex v0,
-        Graph<VLabel, ELabel>.Vertex v1,
-        Graph<VLabel, ELabel> graph) {
-        Stack<Graph<VLabel, ELabel>.Edge> hold
-            = new Stack<Graph<VLabel, ELabel>.Edge>();
-        for (Graph<VLabel, ELabel>.Edge items : graph.edges()) {
-            Graph<VLabel, ELabel>.Vertex tmp0 = items.getV0();
-            Graph<VLabel, ELabel>.Vertex tmp1 = items.getV1();
-            if (tmp0.equals(v0) && tmp1.equals(v1)) {
-                hold.push(items);
+    /* Bidirectional Search */
+
+    /** Returns a path from V0 to V1 in G of minimum weight according to
+     *  EWEIGHTER, found by searching forward from V0 along outgoing
+     *  edges and backward from V1 along incoming edges at the same
+     *  time.  VLABEL and ELABEL are the types of vertex and edge labels.
+     *  H guides both searches, so it must be a lower bound on the
+     *  length of a shortest path between any two vertices, not just to
+     *  V1, and must satisfy property b of shortestPath in both
+     *  directions; a straight-line distance or ZERO_DISTANCER (which
+     *  makes this a bidirectional Dijkstra search) qualify.  Returns
+     *  null if V1 is unreachable from V0.  No vertex weights are set. */
+    public static <VLabel, ELabel> List<Graph<VLabel, ELabel>.Edge>
+    bidirectionalPath(Graph<VLabel, ELabel> G,
+                      Graph<VLabel, ELabel>.Vertex V0,
+                      Graph<VLabel, ELabel>.Vertex V1,
+                      Distancer<? super VLabel> h,
+                      Weighting<? super ELabel> eweighter) {
+        return bidirectionalPath(G, V0, V1, h, eweighter,
+                                 new SearchContext<VLabel, ELabel>());
+    }
+
+    /** Returns a path from V0 to V1 in G of minimum weight according to
+     *  EWEIGHTER, as for the 5-argument version of bidirectionalPath,
+     *  but keeping the search's state in CONTEXT, so that searches with
+     *  different contexts may run concurrently.  VLABEL and ELABEL are
+     *  the types of vertex and edge labels. */
+    public static <VLabel, ELabel> List<Graph<VLabel, ELabel>.Edge>
+    bidirectionalPath(Graph<VLabel, ELabel> G,
+                      Graph<VLabel, ELabel>.Vertex V0,
+                      Graph<VLabel, ELabel>.Vertex V1,
+                      Distancer<? super VLabel> h,
+                      Weighting<? super ELabel> eweighter,
+                      SearchContext<VLabel, ELabel> context) {
+        if (V0 == V1) {
+            return new ArrayList<Graph<VLabel, ELabel>.Edge>();
+        }
+        VLabel source = V0.getLabel(), goal = V1.getLabel();
+        context.begin(0);
+        int s = context.number(V0), t = context.number(V1);
+        context.reach(0, s, 0.0, null);
+        context.reach(1, t, 0.0, null);
+        IndexedHeap[] open = { context.open(0), context.open(1) };
+        open[0].put(s, potential(h, source, source, goal));
+        open[1].put(t, -potential(h, goal, source, goal));
+
+        double best = Double.POSITIVE_INFINITY;
+        int meet = -1;
+        while (!open[0].isEmpty() && !open[1].isEmpty()
+               && open[0].peekKey() + open[1].peekKey() < best) {
+            int side = open[0].size() <= open[1].size() ? 0 : 1;
+            int current = open[side].poll();
+            context.close(side, current);
+            Graph<VLabel, ELabel>.Vertex vertex = context.vertex(current);
+            Iteration<Graph<VLabel, ELabel>.Edge> edges
+                = side == 0 ? G.outEdges(vertex) : G.inEdges(vertex);
+            for (Graph<VLabel, ELabel>.Edge e : edges) {
+                Graph<VLabel, ELabel>.Vertex neighbor
+                    = side == 0 ? e.getV1() : e.getV0();
+                int next = context.number(neighbor);
+                if (context.closed(side, next)) {
+                    continue;
+                }
+                double tmpgscore = context.gscore(side, current)
+                    + eweighter.weight(e.getLabel());
+                if (tmpgscore < context.gscore(side, next)) {
+                    context.reach(side, next, tmpgscore, e);
+                    double p = potential(h, neighbor.getLabel(),
+                                         source, goal);
+                    open[side].put(next, tmpgscore + (side == 0 ? p : -p));
+                    double through = tmpgscore
+                        + context.gscore(1 - side, next);
+                    if (through < best) {
+                        best = through;
+                        meet = next;
+                    }
+                }
             }
         }
-        if (hold.size() > 0) {
-            return smallestEdgex(hold);
-        } else {
-            System.err.print("no edge found");
+        if (meet < 0) {
             return null;
         }
+        ArrayList<Graph<VLabel, ELabel>.Edge> bestPath
+            = edgePath(context, meet);
+        for (Graph<VLabel, ELabel>.Edge e = context.edge(1, meet); e != null;
+             e = context.edge(1, context.number(e.getV1()))) {
+            bestPath.add(e);
+        }
+        return bestPath;
     }
 
-    /** Determines which edge is the smallest. Takes in INPUT ELABEL VLABEL
-     *  and returns an edge. */
-    static <VLabel extends Weightable, ELabel extends Weighted>
-    Graph<VLabel, ELabel>.Edge
-    smallestEdgex(Stack<Graph<VLabel, ELabel>.Edge> input) {
-        Graph<VLabel, ELabel>.Edge test = input.pop();
-        try {
-            if (input.size() == 1) {
-                return test;
-            } else {
-                Graph<VLabel, ELabel>.Edge start;
-                start = test;
-                while (!input.empty()) {
-                    Graph<VLabel, ELabel>.Edge comp = input.pop();
-                    double tmp = start.getLabel().weight();
-                    double tmp2 = comp.getLabel().weight();
-                    if (tmp >= tmp2) {
-                        start = comp;
+    /** Returns a path from V0 to V1 in G of minimum weight, according to
+     *  the weights of its edge labels, as for the 5-argument version of
+     *  bidirectionalPath.  VLABEL and ELABEL are the types of vertex and
+     *  edge labels, and H is as for that version. */
+    public static <VLabel, ELabel extends Weighted>
+    List<Graph<VLabel, ELabel>.Edge>
+    bidirectionalPath(Graph<VLabel, ELabel> G,
+                      Graph<VLabel, ELabel>.Vertex V0,
+                      Graph<VLabel, ELabel>.Vertex V1,
+                      Distancer<? super VLabel> h) {
+        return bidirectionalPath(G, V0, V1, h, CompactGraph.LABEL_WEIGHTS);
+    }
+
+    /** Returns a path of minimum weight from the vertex numbered V0 to
+     *  the vertex numbered V1 in G, found as for the other versions of
+     *  bidirectionalPath but over G's arrays, as a list of edges of the
+     *  graph G was copied from.  VLABEL and ELABEL are the types of
+     *  vertex and edge labels.  Returns null if V1 is unreachable. */
+    public static <VLabel, ELabel> List<Graph<VLabel, ELabel>.Edge>
+    bidirectionalPath(CompactGraph<VLabel, ELabel> G, int V0, int V1,
+                      Distancer<? super VLabel> h) {
+        return bidirectionalPath(G, V0, V1, h,
+                                 new SearchContext<VLabel, ELabel>());
+    }
+
+    /** Returns a path of minimum weight from the vertex numbered V0 to
+     *  the vertex numbered V1 in G, as for the 4-argument version, but
+     *  keeping the search's state in CONTEXT.  Searches with different
+     *  contexts may run concurrently, and reusing a context saves
+     *  allocating arrays the size of G for each search.  VLABEL and
+     *  ELABEL are the types of vertex and edge labels. */
+    public static <VLabel, ELabel> List<Graph<VLabel, ELabel>.Edge>
+    bidirectionalPath(CompactGraph<VLabel, ELabel> G, int V0, int V1,
+                      Distancer<? super VLabel> h,
+                      SearchContext<VLabel, ELabel> context) {
+        if (V0 == V1) {
+            return new ArrayList<Graph<VLabel, ELabel>.Edge>();
+        }
+        VLabel source = G.label(V0), goal = G.label(V1);
+        context.begin(G.vertexSize());
+        context.reach(0, V0, 0.0, -1, -1);
+        context.reach(1, V1, 0.0, -1, -1);
+        IndexedHeap[] open = { context.open(0), context.open(1) };
+        open[0].put(V0, potential(h, source, source, goal));
+        open[1].put(V1, -potential(h, goal, source, goal));
+
+        double best = Double.POSITIVE_INFINITY;
+        int meet = -1;
+        while (!open[0].isEmpty() && !open[1].isEmpty()
+               && open[0].peekKey() + open[1].peekKey() < best) {
+            int side = open[0].size() <= open[1].size() ? 0 : 1;
+            int current = open[side].poll();
+            context.close(side, current);
+            double gscore = context.gscore(side, current);
+            int first = side == 0 ? G.firstOut(current) : G.firstIn(current);
+            int end = side == 0 ? G.endOut(current) : G.endIn(current);
+            for (int j = first; j < end; j += 1) {
+                int k = side == 0 ? j : G.inEdge(j);
+                int next = side == 0 ? G.target(k) : G.source(j);
+                if (context.closed(side, next)) {
+                    continue;
+                }
+                double tmpgscore = gscore + G.weight(k);
+                if (tmpgscore < context.gscore(side, next)) {
+                    context.reach(side, next, tmpgscore, current, k);
+                    double p = potential(h, G.label(next), source, goal);
+                    open[side].put(next, tmpgscore + (side == 0 ? p : -p));
+                    double through = tmpgscore
+                        + context.gscore(1 - side, next);
+                    if (through < best) {
+                        best = through;
+                        meet = next;
                     }
                 }
-                return start;
             }
-        } catch (NullPointerException e) {
-            return test;
         }
+        if (meet < 0) {
+            return null;
+        }
+        ArrayList<Graph<VLabel, ELabel>.Edge> bestPath
+            = compactPath(G, context, meet);
+        for (int v = meet; context.camefrom(1, v) >= 0;
+             v = context.camefrom(1, v)) {
+            bestPath.add(G.edge(context.via(1, v)));
+        }
+        return bestPath;
+    }
+
+    /* One-to-many and many-to-many distances */
+
+    /** Returns the weights of shortest paths in G from the vertex
+     *  numbered SOURCE to each of the vertices numbered TARGETS[i], in
+     *  order, with Double.POSITIVE_INFINITY for a target that cannot be
+     *  reached (or is numbered -1).  One run of Dijkstra's algorithm
+     *  from SOURCE serves all the targets; it stops as soon as the last
+     *  of them is settled.  VLABEL and ELABEL are the types of vertex
+     *  and edge labels. */
+    public static <VLabel, ELabel> double[]
+    distances(CompactGraph<VLabel, ELabel> G, int source, int[] targets) {
+        return distances(G, source, targets,
+                         new SearchContext<VLabel, ELabel>());
+    }
+
+    /** Returns the weights of shortest paths in G from the vertex
+     *  numbered SOURCE to each of the vertices numbered TARGETS[i], as
+     *  for the 3-argument version, but keeping the search's state in
+     *  CONTEXT.  VLABEL and ELABEL are the types of vertex and edge
+     *  labels. */
+    public static <VLabel, ELabel> double[]
+    distances(CompactGraph<VLabel, ELabel> G, int source, int[] targets,
+              SearchContext<VLabel, ELabel> context) {
+        int[] wanted = targets.clone();
+        Arrays.sort(wanted);
+        int remaining = 0;
+        for (int i = 0; i < wanted.length; i += 1) {
+            if (wanted[i] >= 0 && (i == 0 || wanted[i] != wanted[i - 1])) {
+                wanted[remaining] = wanted[i];
+                remaining += 1;
+            }
+        }
+        int distinct = remaining;
+        IndexedHeap openset = context.open(0);
+        context.begin(G.vertexSize());
+        if (source >= 0) {
+            context.reach(0, source, 0.0, -1, -1);
+            openset.put(source, 0.0);
+        }
+        while (remaining > 0 && !openset.isEmpty()) {
+            int current = openset.poll();
+            if (Arrays.binarySearch(wanted, 0, distinct, current) >= 0) {
+                remaining -= 1;
+            }
+            double gscore = context.gscore(0, current);
+            for (int k = G.firstOut(current); k < G.endOut(current); k += 1) {
+                int neighbor = G.target(k);
+                double tmpgscore = gscore + G.weight(k);
+                if (tmpgscore < context.gscore(0, neighbor)) {
+                    context.reach(0, neighbor, tmpgscore, current, k);
+                    openset.put(neighbor, tmpgscore);
+                }
+            }
+        }
+        double[] result = new double[targets.length];
+        for (int i = 0; i < targets.length; i += 1) {
+            result[i] = targets[i] < 0 ? Double.POSITIVE_INFINITY
+                : context.gscore(0, targets[i]);
+        }
+        return result;
+    }
+
+    /** Returns the matrix of shortest-path weights in G from each of the
+     *  vertices numbered SOURCES[i] to each of the vertices numbered
+     *  TARGETS[j]: row i of the result is distances(G, SOURCES[i],
+     *  TARGETS).  VLABEL and ELABEL are the types of vertex and edge
+     *  labels. */
+    public static <VLabel, ELabel> double[][]
+    distanceMatrix(CompactGraph<VLabel, ELabel> G, int[] sources,
+                   int[] targets) {
+        return distanceMatrix(G, sources, targets, 1);
+    }
+
+    /** Returns the matrix of shortest-path weights in G from SOURCES to
+     *  TARGETS, as for the 3-argument version, computing its rows on
+     *  THREADS threads at once, each with its own SearchContext.  VLABEL
+     *  and ELABEL are the types of vertex and edge labels. */
+    public static <VLabel, ELabel> double[][]
+    distanceMatrix(final CompactGraph<VLabel, ELabel> G,
+                   final int[] sources, final int[] targets, int threads) {
+        final double[][] result = new double[sources.length][];
+        final AtomicInteger next = new AtomicInteger();
+        Runnable worker = new Runnable() {
+            @Override
+            public void run() {
+                SearchContext<VLabel, ELabel> context
+                    = new SearchContext<VLabel, ELabel>();
+                for (int i = next.getAndIncrement(); i < sources.length;
+                     i = next.getAndIncrement()) {
+                    result[i] = distances(G, sources[i], targets, context);
+                }
+            }
+        };
+        int workers = Math.min(threads, sources.length);
+        ForkJoinPool pool = workers <= 1 ? null : new ForkJoinPool(workers);
+        try {
+            RouteExecutor.runWorkers(worker, workers, pool);
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+        return result;
     }
 
-    /** Comparator for vertex extension.
-     *  VLABEL and ELABEL are the types and returns a comparator
-     *  for vertices. */
-    static <VLabel extends Weightable, ELabel extends Weighted>
-    Comparator<Graph<VLabel, ELabel>.Vertex>
-    orderVert() {
-        Comparator<Graph<VLabel, ELabel>.Vertex> change
-            = new Comparator<Graph<VLabel, ELabel>.Vertex>() {
-                @Override
-                public int compare(Graph<VLabel, ELabel>.Vertex x1,
-                    Graph<VLabel, ELabel>.Vertex x2) {
-                    return Double.compare(x1.getLabel().weight(),
-                        x2.getLabel().weight());
+    /* Cycles */
+
+    /** Returns the vertices of a cycle in G, in order, so that each has
+     *  an out-edge to the next and the last has one to the first, or
+     *  null if G has no cycle.  If G is undirected, an edge is not
+     *  followed straight back the way it was taken, so that a single
+     *  edge is no cycle, though two edges between the same vertices
+     *  are.  Takes time proportional to the size of G.  VLABEL and
+     *  ELABEL are the types of vertex and edge labels. */
+    public static <VLabel, ELabel> List<Graph<VLabel, ELabel>.Vertex>
+    findCycle(Graph<VLabel, ELabel> G) {
+        return findCycle(G, G.vertices());
+    }
+
+    /** Returns the vertices of a cycle in G reachable from one of ROOTS,
+     *  in order, as for findCycle(G), or null if there is no such
+     *  cycle.  Takes time proportional to the number of vertices and
+     *  edges reachable from ROOTS.  VLABEL and ELABEL are the types of
+     *  vertex and edge labels. */
+    public static <VLabel, ELabel> List<Graph<VLabel, ELabel>.Vertex>
+    findCycle(Graph<VLabel, ELabel> G,
+              Iterable<Graph<VLabel, ELabel>.Vertex> roots) {
+        /* The position on PATH of each vertex on it, or FINISHED. */
+        HashMap<Graph<VLabel, ELabel>.Vertex, Integer> state
+            = new HashMap<Graph<VLabel, ELabel>.Vertex, Integer>();
+        ArrayList<Graph<VLabel, ELabel>.Vertex> path
+            = new ArrayList<Graph<VLabel, ELabel>.Vertex>();
+        ArrayList<Iteration<Graph<VLabel, ELabel>.Edge>> edges
+            = new ArrayList<Iteration<Graph<VLabel, ELabel>.Edge>>();
+        /* Whether each vertex on PATH has yet to pass over the twin of
+         * the undirected edge it was reached by. */
+        ArrayList<Boolean> twin = new ArrayList<Boolean>();
+        for (Graph<VLabel, ELabel>.Vertex root : roots) {
+            if (state.containsKey(root)) {
+                continue;
+            }
+            state.put(root, 0);
+            path.add(root);
+            edges.add(G.outEdges(root));
+            twin.add(false);
+            while (!path.isEmpty()) {
+                int top = path.size() - 1;
+                Iteration<Graph<VLabel, ELabel>.Edge> out = edges.get(top);
+                if (!out.hasNext()) {
+                    state.put(path.remove(top), FINISHED);
+                    edges.remove(top);
+                    twin.remove(top);
+                    continue;
+                }
+                Graph<VLabel, ELabel>.Vertex w
+                    = out.next().getV(path.get(top));
+                Integer at = state.get(w);
+                if (twin.get(top) && at != null && at == top - 1) {
+                    twin.set(top, false);
+                } else if (at == null) {
+                    state.put(w, path.size());
+                    path.add(w);
+                    edges.add(G.outEdges(w));
+                    twin.add(!G.isDirected());
+                } else if (at != FINISHED) {
+                    return new ArrayList<Graph<VLabel, ELabel>.Vertex>(
+                        path.subList(at, path.size()));
                 }
-            };
-        return change;
+            }
+        }
+        return null;
     }
 
+    /** Returns the forward potential of the vertex labeled V in a
+     *  bidirectional search from SOURCE to GOAL: half the difference
+     *  of H's estimates of the distance to GOAL and from SOURCE.  Its
+     *  negation serves the backward search, and using the same function
+     *  in both directions keeps the two searches consistent with each
+     *  other, so the search may stop as soon as the two least keys sum
+     *  to the best path length seen.  VLABEL is the vertex label type. */
+    static <VLabel> double potential(Distancer<? super VLabel> h, VLabel v,
+                                     VLabel source, VLabel goal) {
+        return (h.dist(v, goal) - h.dist(source, v)) / 2;
+    }
+
+    /** A Weighter that reads and sets the weights of Weightable
+     *  labels themselves. */
+    static final Weighter<Weightable> LABEL_WEIGHTER =
+        new Weighter<Weightable>() {
+            @Override
+            public double weight(Weightable x) {
+                return x.weight();
+            }
+
+            @Override
+            public void setWeight(Weightable x, double v) {
+                x.setWeight(v);
+            }
+        };
+
+    /** Marks a vertex that findCycle has finished with. */
+    private static final int FINISHED = -1;
+
     /** Returns a distancer whose dist method always returns 0. */
     public static final Distancer<Object> ZERO_DISTANCER =
         new Distancer<Object>() {
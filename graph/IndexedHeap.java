@@ -0,0 +1,162 @@
+package graph;
+
+import java.util.Arrays;
+
+/** A binary min-heap of the integers 0 .. capacity - 1, each with a
+ *  double priority.  Because every item knows its own position in the
+ *  heap, contains is O(1) and a priority may be lowered in place in
+ *  O(lg N) time, which is what A* and Dijkstra need in order to avoid
+ *  both duplicate heap entries and linear searches of the fringe.
+ *  @author Felix Liu
+ */
+class IndexedHeap {
+
+    /** An empty heap that can hold items 0 .. CAPACITY - 1. */
+    IndexedHeap(int capacity) {
+        _heap = new int[Math.max(capacity, 1)];
+        _key = new double[Math.max(capacity, 1)];
+        _pos = new int[Math.max(capacity, 1)];
+        Arrays.fill(_pos, -1);
+    }
+
+    /** Returns the number of items in me. */
+    int size() {
+        return _size;
+    }
+
+    /** Returns true iff I am empty. */
+    boolean isEmpty() {
+        return _size == 0;
+    }
+
+    /** Returns the largest item I can hold plus one. */
+    int capacity() {
+        return _pos.length;
+    }
+
+    /** Returns true iff ITEM is in me. */
+    boolean contains(int item) {
+        return item < _pos.length && _pos[item] >= 0;
+    }
+
+    /** Returns the priority of ITEM, which must be in me. */
+    double key(int item) {
+        return _key[item];
+    }
+
+    /** Returns my item with the least priority without removing it. */
+    int peek() {
+        return _heap[0];
+    }
+
+    /** Returns the least priority in me. */
+    double peekKey() {
+        return _key[_heap[0]];
+    }
+
+    /** Adds ITEM with priority KEY if ITEM is not in me, or changes
+     *  its priority to KEY if it is, growing as needed. */
+    void put(int item, double key) {
+        if (item >= _pos.length) {
+            grow(item + 1);
+        }
+        if (_pos[item] < 0) {
+            _heap[_size] = item;
+            _pos[item] = _size;
+            _size += 1;
+            _key[item] = key;
+            up(_size - 1);
+        } else if (key < _key[item]) {
+            _key[item] = key;
+            up(_pos[item]);
+        } else {
+            _key[item] = key;
+            down(_pos[item]);
+        }
+    }
+
+    /** Removes and returns my item with the least priority. */
+    int poll() {
+        int result = _heap[0];
+        _size -= 1;
+        _pos[result] = -1;
+        if (_size > 0) {
+            _heap[0] = _heap[_size];
+            _pos[_heap[0]] = 0;
+            down(0);
+        }
+        return result;
+    }
+
+    /** Removes all items from me. */
+    void clear() {
+        for (int i = 0; i < _size; i += 1) {
+            _pos[_heap[i]] = -1;
+        }
+        _size = 0;
+    }
+
+    /** Moves the item at position I toward the root until its parent's
+     *  priority is no greater. */
+    private void up(int i) {
+        int item = _heap[i];
+        double key = _key[item];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            int p = _heap[parent];
+            if (_key[p] <= key) {
+                break;
+            }
+            _heap[i] = p;
+            _pos[p] = i;
+            i = parent;
+        }
+        _heap[i] = item;
+        _pos[item] = i;
+    }
+
+    /** Moves the item at position I toward the leaves until neither
+     *  child has a smaller priority. */
+    private void down(int i) {
+        int item = _heap[i];
+        double key = _key[item];
+        int half = _size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int c = _heap[child];
+            int right = child + 1;
+            if (right < _size && _key[_heap[right]] < _key[c]) {
+                child = right;
+                c = _heap[child];
+            }
+            if (key <= _key[c]) {
+                break;
+            }
+            _heap[i] = c;
+            _pos[c] = i;
+            i = child;
+        }
+        _heap[i] = item;
+        _pos[item] = i;
+    }
+
+    /** Enlarges me so that I can hold items up to MIN - 1. */
+    private void grow(int min) {
+        int cap = Math.max(min, 2 * _pos.length);
+        int old = _pos.length;
+        _heap = Arrays.copyOf(_heap, cap);
+        _key = Arrays.copyOf(_key, cap);
+        _pos = Arrays.copyOf(_pos, cap);
+        Arrays.fill(_pos, old, cap, -1);
+    }
+
+    /** The items, arranged as a binary heap in _heap[0 .. _size-1]. */
+    private int[] _heap;
+    /** The priority of each item, indexed by item. */
+    private double[] _key;
+    /** The position of each item in _heap, or -1 if absent. */
+    private int[] _pos;
+    /** The number of items in me. */
+    private int _size;
+
+}
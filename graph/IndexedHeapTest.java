@@ -0,0 +1,60 @@
+package graph;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.Random;
+import java.util.PriorityQueue;
+
+/** Junit Tests for IndexedHeap.java
+ *  @author Felix Liu. */
+
+public class IndexedHeapTest {
+
+    /** Items come out in priority order after decreases. */
+    @Test
+    public void decreaseKey() {
+        IndexedHeap heap = new IndexedHeap(4);
+        heap.put(0, 5.0);
+        heap.put(1, 3.0);
+        heap.put(2, 4.0);
+        heap.put(3, 9.0);
+        heap.put(3, 1.0);
+        assertEquals(4, heap.size());
+        assertEquals(true, heap.contains(3));
+        assertEquals(3, heap.poll());
+        assertEquals(false, heap.contains(3));
+        heap.put(0, 2.0);
+        assertEquals(0, heap.poll());
+        assertEquals(1, heap.poll());
+        assertEquals(2, heap.poll());
+        assertEquals(true, heap.isEmpty());
+    }
+
+    /** Compares against java.util.PriorityQueue with random updates,
+     *  including items beyond the initial capacity. */
+    @Test
+    public void randomized() {
+        Random rand = new Random(61);
+        IndexedHeap heap = new IndexedHeap(1);
+        double[] keys = new double[200];
+        for (int i = 0; i < 1000; i += 1) {
+            int item = rand.nextInt(keys.length);
+            double key = rand.nextDouble();
+            if (!heap.contains(item) || key < keys[item]) {
+                heap.put(item, key);
+                keys[item] = key;
+            }
+        }
+        PriorityQueue<Double> expected = new PriorityQueue<Double>();
+        for (int i = 0; i < keys.length; i += 1) {
+            if (heap.contains(i)) {
+                expected.add(keys[i]);
+            }
+        }
+        while (!expected.isEmpty()) {
+            assertEquals(expected.poll(), heap.peekKey(), 0);
+            heap.poll();
+        }
+        assertEquals(true, heap.isEmpty());
+    }
+}
@@ -0,0 +1,191 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/** A static two-dimensional k-d tree over a collection of objects
+ *  placed in the plane by a Locator, answering nearest-neighbor and
+ *  radius queries.  The tree is implicit: the objects are kept in one
+ *  array, ordered so that the median of each range, by x at even depths
+ *  and by y at odd ones, sits at the middle of the range, with no
+ *  larger coordinate before it and no smaller one after it.  Building
+ *  takes O(N log N) time, a nearest-neighbor query takes O(log N) time
+ *  on typical inputs, and a radius query that finds K objects takes
+ *  O(sqrt N + K).  Objects are located once, when I am built, and I may
+ *  be shared among concurrent queries.  TYPE is the type of the
+ *  objects.
+ *  @author Felix Liu
+ */
+public final class KdTree<Type> {
+
+    /** A tree over ITEMS, placed by WHERE. */
+    public KdTree(Collection<? extends Type> items,
+                  Locator<? super Type> where) {
+        int n = items.size();
+        _items = new Object[n];
+        _x = new double[n];
+        _y = new double[n];
+        int i = 0;
+        for (Type item : items) {
+            _items[i] = item;
+            _x[i] = where.x(item);
+            _y[i] = where.y(item);
+            i += 1;
+        }
+        build(0, n, 0);
+    }
+
+    /** Returns the number of objects in me. */
+    public int size() {
+        return _items.length;
+    }
+
+    /** Returns an object of mine nearest to (X, Y), or null if I am
+     *  empty. */
+    @SuppressWarnings("unchecked")
+    public Type nearest(double x, double y) {
+        if (_items.length == 0) {
+            return null;
+        }
+        double[] best = { Double.POSITIVE_INFINITY, -1 };
+        nearest(x, y, 0, _items.length, 0, best);
+        return (Type) _items[(int) best[1]];
+    }
+
+    /** Returns all of my objects at distance at most R from (X, Y), in
+     *  no particular order. */
+    @SuppressWarnings("unchecked")
+    public List<Type> within(double x, double y, double r) {
+        ArrayList<Type> result = new ArrayList<Type>();
+        if (r >= 0) {
+            within(x, y, r * r, 0, _items.length, 0, result);
+        }
+        return result;
+    }
+
+    /** Arranges _items[LO .. HI-1] as the subtree at DEPTH. */
+    private void build(int lo, int hi, int depth) {
+        while (hi - lo > 1) {
+            int mid = (lo + hi) >>> 1;
+            select(lo, hi, mid, depth % 2 == 0 ? _x : _y);
+            build(mid + 1, hi, depth + 1);
+            hi = mid;
+            depth += 1;
+        }
+    }
+
+    /** Rearranges _items[LO .. HI-1], with their coordinates, so that
+     *  KEY[K] holds the value it would hold if the range were sorted by
+     *  KEY, with no larger key before it and no smaller one after it.
+     *  Partitions three ways, so that runs of equal keys, common in maps
+     *  laid out on grids, do not make this quadratic. */
+    private void select(int lo, int hi, int k, double[] key) {
+        while (hi - lo > 1) {
+            double pivot = median(key[lo], key[(lo + hi) >>> 1],
+                                  key[hi - 1]);
+            int lt = lo, i = lo, gt = hi;
+            while (i < gt) {
+                if (key[i] < pivot) {
+                    swap(lt, i);
+                    lt += 1;
+                    i += 1;
+                } else if (key[i] > pivot) {
+                    gt -= 1;
+                    swap(i, gt);
+                } else {
+                    i += 1;
+                }
+            }
+            if (k < lt) {
+                hi = lt;
+            } else if (k >= gt) {
+                lo = gt;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /** Returns the median of A, B and C. */
+    private static double median(double a, double b, double c) {
+        return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+    }
+
+    /** Exchanges entries I and J. */
+    private void swap(int i, int j) {
+        Object item = _items[i];
+        _items[i] = _items[j];
+        _items[j] = item;
+        double t = _x[i];
+        _x[i] = _x[j];
+        _x[j] = t;
+        t = _y[i];
+        _y[i] = _y[j];
+        _y[j] = t;
+    }
+
+    /** Searches the subtree _items[LO .. HI-1] at DEPTH for an entry
+     *  nearer to (X, Y) than BEST[0] is the square of, and if it finds
+     *  one, sets BEST[0] to its squared distance and BEST[1] to its
+     *  index. */
+    private void nearest(double x, double y, int lo, int hi, int depth,
+                         double[] best) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            double dx = x - _x[mid], dy = y - _y[mid];
+            double d2 = dx * dx + dy * dy;
+            if (d2 < best[0]) {
+                best[0] = d2;
+                best[1] = mid;
+            }
+            double diff = depth % 2 == 0 ? dx : dy;
+            depth += 1;
+            if (diff < 0) {
+                nearest(x, y, lo, mid, depth, best);
+                if (diff * diff < best[0]) {
+                    lo = mid + 1;
+                } else {
+                    return;
+                }
+            } else {
+                nearest(x, y, mid + 1, hi, depth, best);
+                if (diff * diff < best[0]) {
+                    hi = mid;
+                } else {
+                    return;
+                }
+            }
+        }
+    }
+
+    /** Adds to RESULT the entries of the subtree _items[LO .. HI-1] at
+     *  DEPTH whose squared distance from (X, Y) is at most R2. */
+    @SuppressWarnings("unchecked")
+    private void within(double x, double y, double r2, int lo, int hi,
+                        int depth, List<Type> result) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            double dx = x - _x[mid], dy = y - _y[mid];
+            if (dx * dx + dy * dy <= r2) {
+                result.add((Type) _items[mid]);
+            }
+            double diff = depth % 2 == 0 ? dx : dy;
+            depth += 1;
+            if (diff * diff <= r2) {
+                within(x, y, r2, lo, mid, depth, result);
+                lo = mid + 1;
+            } else if (diff < 0) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+    }
+
+    /** The objects, in tree order. */
+    private final Object[] _items;
+    /** The coordinates of each entry of _items. */
+    private final double[] _x, _y;
+
+}
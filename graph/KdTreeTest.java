@@ -0,0 +1,91 @@
+package graph;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/** Junit Tests for KdTree.java
+ *  @author Felix Liu. */
+
+public class KdTreeTest {
+
+    /** Places points stored as { x, y }. */
+    static final Locator<double[]> POINT = new Locator<double[]>() {
+        @Override
+        public double x(double[] v) {
+            return v[0];
+        }
+
+        @Override
+        public double y(double[] v) {
+            return v[1];
+        }
+    };
+
+    /** Returns the squared distance from P to (X, Y). */
+    static double dist2(double[] p, double x, double y) {
+        return (p[0] - x) * (p[0] - x) + (p[1] - y) * (p[1] - y);
+    }
+
+    /** Checks the empty tree and a tree of one point. */
+    @Test
+    public void small() {
+        ArrayList<double[]> points = new ArrayList<double[]>();
+        KdTree<double[]> empty = new KdTree<double[]>(points, POINT);
+        assertEquals(0, empty.size());
+        assertEquals(null, empty.nearest(0, 0));
+        assertEquals(0, empty.within(0, 0, 10).size());
+        double[] p = { 3, 4 };
+        points.add(p);
+        KdTree<double[]> one = new KdTree<double[]>(points, POINT);
+        assertSame(p, one.nearest(-100, 7));
+        assertEquals(1, one.within(0, 0, 5).size());
+        assertEquals(0, one.within(0, 0, 4.99).size());
+    }
+
+    /** Checks queries against brute force, on random points and on a
+     *  grid full of equal coordinates. */
+    @Test
+    public void randomQueries() {
+        Random r = new Random(61);
+        for (int shape = 0; shape < 2; shape += 1) {
+            ArrayList<double[]> points = new ArrayList<double[]>();
+            for (int i = 0; i < 2000; i += 1) {
+                if (shape == 0) {
+                    points.add(new double[] { r.nextDouble() * 100,
+                                              r.nextDouble() * 100 });
+                } else {
+                    points.add(new double[] { i % 40, i / 40 });
+                }
+            }
+            KdTree<double[]> tree = new KdTree<double[]>(points, POINT);
+            assertEquals(points.size(), tree.size());
+            for (int q = 0; q < 500; q += 1) {
+                double x = r.nextDouble() * 120 - 10;
+                double y = r.nextDouble() * 120 - 10;
+                double best = Double.POSITIVE_INFINITY;
+                List<double[]> near = new ArrayList<double[]>();
+                double radius = r.nextDouble() * 8;
+                for (double[] p : points) {
+                    best = Math.min(best, dist2(p, x, y));
+                    if (dist2(p, x, y) <= radius * radius) {
+                        near.add(p);
+                    }
+                }
+                assertEquals(best, dist2(tree.nearest(x, y), x, y), 0);
+                List<double[]> found = tree.within(x, y, radius);
+                assertEquals(near.size(), found.size());
+                Set<double[]> same = Collections.newSetFromMap(
+                    new IdentityHashMap<double[], Boolean>());
+                same.addAll(found);
+                assertEquals(found.size(), same.size());
+                assertTrue(same.containsAll(near));
+            }
+        }
+    }
+}
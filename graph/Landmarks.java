@@ -0,0 +1,325 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Random;
+
+/** A Distancer for A* search that bounds distances with the triangle
+ *  inequality against a few chosen "landmark" vertices (the ALT
+ *  technique).  For every vertex v and landmark L, I store d(L, v) and
+ *  d(v, L), the weights of shortest paths in the graph.  Then for any
+ *  goal t, both d(L, t) - d(L, v) and d(v, L) - d(t, L) are lower bounds
+ *  on d(v, t), and their maximum over all landmarks is an admissible
+ *  and consistent heuristic that, unlike straight-line distance, knows
+ *  about the detours the graph forces.  Because dist receives labels,
+ *  vertex labels must be distinct; labels not in the graph get
+ *  distance 0.  The tables are computed once, when I am made, and I
+ *  may be shared among concurrent searches.  VLABEL is the vertex
+ *  label type of the graph.
+ *  @author Felix Liu
+ */
+public final class Landmarks<VLabel> implements Distancer<VLabel> {
+
+    /** Ways to choose landmarks.  Good landmarks lie "behind" the ends
+     *  of typical queries, which in practice means on the edges of the
+     *  graph and spread evenly around it. */
+    public enum Strategy {
+        /** Each landmark is the vertex farthest from those already
+         *  chosen. */
+        FARTHEST,
+        /** Each landmark is the leaf of a shortest-path tree from a
+         *  random vertex under which the current landmarks give the
+         *  worst bounds (Goldberg and Harrelson's "avoid"). */
+        AVOID,
+        /** The plane is divided into equal sectors around the center of
+         *  the graph, and each landmark is the vertex in its sector
+         *  farthest from the center.  Needs a Locator. */
+        PLANAR
+    }
+
+    /** COUNT landmarks for G, chosen by STRATEGY, which may not be
+     *  PLANAR. */
+    public Landmarks(CompactGraph<VLabel, ?> G, int count,
+                     Strategy strategy) {
+        this(G, count, strategy, null);
+    }
+
+    /** COUNT landmarks for G, chosen by STRATEGY.  WHERE gives the
+     *  position of each vertex label for the PLANAR strategy, and may
+     *  be null for the others. */
+    public Landmarks(CompactGraph<VLabel, ?> G, int count,
+                     Strategy strategy, Locator<? super VLabel> where) {
+        if (strategy == Strategy.PLANAR && where == null) {
+            throw new IllegalArgumentException("planar landmarks need "
+                                               + "vertex positions");
+        }
+        _n = G.vertexSize();
+        _ids = new HashMap<VLabel, Integer>(2 * _n);
+        for (int v = 0; v < _n; v += 1) {
+            _ids.put(G.label(v), v);
+        }
+        int k = Math.max(0, Math.min(count, _n));
+        _landmarks = new int[k];
+        _from = new double[k * _n];
+        _to = new double[k * _n];
+        switch (strategy) {
+        case FARTHEST:
+            farthest(G, 0);
+            break;
+        case AVOID:
+            avoid(G);
+            break;
+        default:
+            planar(G, where);
+            break;
+        }
+    }
+
+    /** Returns the number of landmarks. */
+    public int size() {
+        return _landmarks.length;
+    }
+
+    /** Returns the number of landmark I in the graph I was built for. */
+    public int landmark(int i) {
+        return _landmarks[i];
+    }
+
+    @Override
+    public double dist(VLabel v0, VLabel v1) {
+        Integer v = _ids.get(v0);
+        Integer t = _ids.get(v1);
+        if (v == null || t == null) {
+            return 0.0;
+        }
+        return bound(v, t);
+    }
+
+    /** Returns my lower bound on the weight of a path from the vertex
+     *  numbered V to the vertex numbered T. */
+    public double bound(int v, int t) {
+        int k = _landmarks.length;
+        int vi = v * k, ti = t * k;
+        double result = 0.0;
+        for (int l = 0; l < k; l += 1) {
+            double fromV = _from[vi + l], fromT = _from[ti + l];
+            if (fromT < INF && fromV < INF && fromT - fromV > result) {
+                result = fromT - fromV;
+            }
+            double toV = _to[vi + l], toT = _to[ti + l];
+            if (toV < INF && toT < INF && toV - toT > result) {
+                result = toV - toT;
+            }
+        }
+        return result;
+    }
+
+    /** Chooses landmarks FIRST and on by the FARTHEST strategy,
+     *  starting from the vertex farthest from vertex 0 if there are no
+     *  landmarks yet. */
+    private void farthest(CompactGraph<VLabel, ?> G, int first) {
+        int k = _landmarks.length;
+        double[] nearest = new double[_n];
+        Arrays.fill(nearest, INF);
+        if (first == 0 && k > 0) {
+            search(G, 0, true, nearest, null, null);
+        }
+        for (int i = 0; i < k; i += 1) {
+            if (i >= first) {
+                choose(G, i, farthest(nearest));
+            }
+            for (int v = 0; v < _n; v += 1) {
+                double d = Math.min(_from[v * k + i], _to[v * k + i]);
+                nearest[v] = i == 0 ? d : Math.min(nearest[v], d);
+            }
+        }
+    }
+
+    /** Returns the vertex with the largest finite entry in DIST, or 0 if
+     *  there is none. */
+    private int farthest(double[] dist) {
+        int result = 0;
+        double best = -1;
+        for (int v = 0; v < _n; v += 1) {
+            if (dist[v] < INF && dist[v] > best) {
+                result = v;
+                best = dist[v];
+            }
+        }
+        return result;
+    }
+
+    /** Chooses landmarks by the AVOID strategy. */
+    private void avoid(CompactGraph<VLabel, ?> G) {
+        Random random = new Random(_n);
+        double[] dist = new double[_n];
+        int[] parent = new int[_n];
+        int[] order = new int[_n];
+        double[] size = new double[_n];
+        int[] heaviest = new int[_n];
+        boolean[] covered = new boolean[_n];
+        for (int i = 0; i < _landmarks.length; i += 1) {
+            int root = random.nextInt(_n);
+            int reached = search(G, root, true, dist, parent, order);
+            if (i == 0) {
+                choose(G, i, farthest(dist));
+                continue;
+            }
+            for (int l = 0; l < i; l += 1) {
+                covered[_landmarks[l]] = true;
+            }
+            for (int j = 0; j < reached; j += 1) {
+                heaviest[order[j]] = -1;
+            }
+            for (int j = reached - 1; j >= 0; j -= 1) {
+                int v = order[j];
+                size[v] = covered[v] ? 0.0
+                    : size[v] + dist[v] - bound(i, root, v);
+                int p = parent[v];
+                if (p >= 0) {
+                    size[p] += size[v];
+                    covered[p] |= covered[v];
+                    if (heaviest[p] < 0 || size[v] > size[heaviest[p]]) {
+                        heaviest[p] = v;
+                    }
+                }
+            }
+            int v = root;
+            while (heaviest[v] >= 0 && size[heaviest[v]] > 0.0) {
+                v = heaviest[v];
+            }
+            for (int j = 0; j < reached; j += 1) {
+                size[order[j]] = 0.0;
+            }
+            Arrays.fill(covered, false);
+            choose(G, i, v);
+        }
+    }
+
+    /** Chooses landmarks by the PLANAR strategy, with vertex positions
+     *  given by WHERE.  Sectors with no vertices in them are made up
+     *  for with FARTHEST landmarks. */
+    private void planar(CompactGraph<VLabel, ?> G,
+                        Locator<? super VLabel> where) {
+        int k = _landmarks.length;
+        double cx = 0.0, cy = 0.0;
+        for (int v = 0; v < _n; v += 1) {
+            cx += where.x(G.label(v));
+            cy += where.y(G.label(v));
+        }
+        cx /= Math.max(_n, 1);
+        cy /= Math.max(_n, 1);
+        int[] best = new int[k];
+        double[] far = new double[k];
+        Arrays.fill(best, -1);
+        for (int v = 0; v < _n; v += 1) {
+            double dx = where.x(G.label(v)) - cx;
+            double dy = where.y(G.label(v)) - cy;
+            double angle = Math.atan2(dy, dx) + Math.PI;
+            int sector = Math.min(k - 1, (int) (angle / (2 * Math.PI) * k));
+            double r = dx * dx + dy * dy;
+            if (best[sector] < 0 || r > far[sector]) {
+                best[sector] = v;
+                far[sector] = r;
+            }
+        }
+        int i = 0;
+        for (int s = 0; s < k; s += 1) {
+            if (best[s] >= 0) {
+                choose(G, i, best[s]);
+                i += 1;
+            }
+        }
+        farthest(G, i);
+    }
+
+    /** Makes V landmark number I, filling in its columns of the
+     *  distance tables. */
+    private void choose(CompactGraph<VLabel, ?> G, int i, int v) {
+        int k = _landmarks.length;
+        _landmarks[i] = v;
+        double[] dist = new double[_n];
+        search(G, v, true, dist, null, null);
+        for (int w = 0; w < _n; w += 1) {
+            _from[w * k + i] = dist[w];
+        }
+        search(G, v, false, dist, null, null);
+        for (int w = 0; w < _n; w += 1) {
+            _to[w * k + i] = dist[w];
+        }
+    }
+
+    /** Returns the bound that the first LANDMARKS landmarks give on the
+     *  distance from V to W. */
+    private double bound(int landmarks, int v, int w) {
+        int k = _landmarks.length;
+        double result = 0.0;
+        for (int l = 0; l < landmarks; l += 1) {
+            double a = _from[w * k + l] - _from[v * k + l];
+            double b = _to[v * k + l] - _to[w * k + l];
+            if (a < INF && a > result) {
+                result = a;
+            }
+            if (b < INF && b > result) {
+                result = b;
+            }
+        }
+        return result;
+    }
+
+    /** Runs Dijkstra's algorithm on G from SOURCE, following edges
+     *  forward if FORWARD and backward otherwise, and leaves the
+     *  distance to each vertex in DIST (infinite if unreached).  If
+     *  PARENT is not null, also leaves there the vertex each vertex was
+     *  reached from (-1 for SOURCE), and in ORDER the vertices in the
+     *  order they were settled.  Returns the number of vertices
+     *  reached. */
+    static int search(CompactGraph<?, ?> G, int source, boolean forward,
+                      double[] dist, int[] parent, int[] order) {
+        Arrays.fill(dist, INF);
+        IndexedHeap fringe = new IndexedHeap(G.vertexSize());
+        dist[source] = 0.0;
+        if (parent != null) {
+            parent[source] = -1;
+        }
+        fringe.put(source, 0.0);
+        int settled = 0;
+        while (!fringe.isEmpty()) {
+            int v = fringe.poll();
+            if (order != null) {
+                order[settled] = v;
+            }
+            settled += 1;
+            int end = forward ? G.endOut(v) : G.endIn(v);
+            for (int j = forward ? G.firstOut(v) : G.firstIn(v); j < end;
+                 j += 1) {
+                int k = forward ? j : G.inEdge(j);
+                int w = forward ? G.target(k) : G.source(j);
+                double d = dist[v] + G.weight(k);
+                if (d < dist[w]) {
+                    dist[w] = d;
+                    if (parent != null) {
+                        parent[w] = v;
+                    }
+                    fringe.put(w, d);
+                }
+            }
+        }
+        return settled;
+    }
+
+    /** Stands for an unreachable vertex in the tables. */
+    private static final double INF = Double.POSITIVE_INFINITY;
+
+    /** Number of vertices. */
+    private final int _n;
+    /** Maps labels to vertex numbers. */
+    private final HashMap<VLabel, Integer> _ids;
+    /** The landmarks' vertex numbers. */
+    private final int[] _landmarks;
+    /** _from[v * size() + l] is the distance from landmark l to v. */
+    private final double[] _from;
+    /** _to[v * size() + l] is the distance from v to landmark l. */
+    private final double[] _to;
+
+}
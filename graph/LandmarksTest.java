@@ -0,0 +1,139 @@
+package graph;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/** Junit Tests for Landmarks.java
+ *  @author Felix Liu. */
+
+public class LandmarksTest {
+
+    /** Side of the grid used by these tests. */
+    private static final int SIDE = 12;
+
+    /** Returns a SIDE x SIDE grid of roads in both directions, with a
+     *  wall across the middle that forces a detour, labeled by position
+     *  y * SIDE + x. */
+    static DirectedGraph<Integer, Integer> grid() {
+        Random r = new Random(61);
+        DirectedGraph<Integer, Integer> g
+            = new DirectedGraph<Integer, Integer>();
+        ArrayList<Graph<Integer, Integer>.Vertex> vs
+            = new ArrayList<Graph<Integer, Integer>.Vertex>();
+        for (int i = 0; i < SIDE * SIDE; i += 1) {
+            vs.add(g.add(i));
+        }
+        for (int y = 0; y < SIDE; y += 1) {
+            for (int x = 0; x < SIDE; x += 1) {
+                int v = y * SIDE + x;
+                if (x + 1 < SIDE) {
+                    int w = 10 + r.nextInt(5);
+                    g.add(vs.get(v), vs.get(v + 1), w);
+                    g.add(vs.get(v + 1), vs.get(v), w);
+                }
+                if (y + 1 < SIDE && (y != SIDE / 2 || x == SIDE - 1)) {
+                    int w = 10 + r.nextInt(5);
+                    g.add(vs.get(v), vs.get(v + SIDE), w);
+                    g.add(vs.get(v + SIDE), vs.get(v), w);
+                }
+            }
+        }
+        return g;
+    }
+
+    /** The grid position of each label. */
+    static final Locator<Integer> POSITION = new Locator<Integer>() {
+        @Override
+        public double x(Integer v) {
+            return v % SIDE;
+        }
+
+        @Override
+        public double y(Integer v) {
+            return v / SIDE;
+        }
+    };
+
+    /** Returns the total weight of PATH. */
+    static int weight(List<Graph<Integer, Integer>.Edge> path) {
+        int total = 0;
+        for (Graph<Integer, Integer>.Edge e : path) {
+            total += e.getLabel();
+        }
+        return total;
+    }
+
+    /** Checks that L never overestimates, and that A* with L finds
+     *  shortest paths over both versions of shortestPath. */
+    static void check(DirectedGraph<Integer, Integer> g,
+                      CompactGraph<Integer, Integer> c,
+                      Landmarks<Integer> L) {
+        for (int s = 0; s < c.vertexSize(); s += 7) {
+            for (int t = 0; t < c.vertexSize(); t += 5) {
+                List<Graph<Integer, Integer>.Edge> exact
+                    = Graphs.shortestPath(c, s, t, Graphs.ZERO_DISTANCER);
+                int d = weight(exact);
+                assertTrue(L.dist(c.label(s), c.label(t)) <= d);
+                assertEquals(d, weight(Graphs.shortestPath(c, s, t, L)));
+                assertEquals(d, weight(Graphs.shortestPath(g, c.vertex(s),
+                                                           c.vertex(t), L,
+                                                           GraphTest.VERTEX,
+                                                           GraphTest.EDGE)));
+            }
+        }
+    }
+
+    /** Checks each strategy. */
+    @Test
+    public void strategies() {
+        DirectedGraph<Integer, Integer> g = grid();
+        CompactGraph<Integer, Integer> c
+            = new CompactGraph<Integer, Integer>(g, GraphTest.EDGE);
+        for (Landmarks.Strategy s : Landmarks.Strategy.values()) {
+            Landmarks<Integer> L
+                = new Landmarks<Integer>(c, 4, s, POSITION);
+            assertEquals(4, L.size());
+            check(g, c, L);
+        }
+    }
+
+    /** Checks that landmarks see the detour that straight-line distance
+     *  misses. */
+    @Test
+    public void detour() {
+        DirectedGraph<Integer, Integer> g = grid();
+        CompactGraph<Integer, Integer> c
+            = new CompactGraph<Integer, Integer>(g, GraphTest.EDGE);
+        Landmarks<Integer> L
+            = new Landmarks<Integer>(c, 4, Landmarks.Strategy.AVOID);
+        int s = (SIDE / 2) * SIDE, t = s + SIDE;
+        assertTrue(L.dist(s, t) > 10 * SIDE);
+        assertEquals(0.0, L.dist(s, -1), 0);
+    }
+
+    /** Checks that a landmark chosen as the farthest vertex is one that
+     *  can be reached, when vertex 0 cannot. */
+    @Test
+    public void unreachableFirst() {
+        DirectedGraph<Integer, Integer> g
+            = new DirectedGraph<Integer, Integer>();
+        ArrayList<Graph<Integer, Integer>.Vertex> vs
+            = new ArrayList<Graph<Integer, Integer>.Vertex>();
+        for (int i = 0; i < SIDE; i += 1) {
+            vs.add(g.add(i));
+        }
+        for (int i = 1; i + 1 < SIDE; i += 1) {
+            g.add(vs.get(i), vs.get(i + 1), 1);
+            g.add(vs.get(i + 1), vs.get(i), 1);
+        }
+        CompactGraph<Integer, Integer> c
+            = new CompactGraph<Integer, Integer>(g, GraphTest.EDGE);
+        Landmarks<Integer> L
+            = new Landmarks<Integer>(c, 1, Landmarks.Strategy.AVOID);
+        int end = c.label(L.landmark(0));
+        assertTrue(end == 1 || end == SIDE - 1);
+    }
+}
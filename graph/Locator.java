@@ -0,0 +1,15 @@
+package graph;
+
+/** An object representing a function that places objects of type TYPE
+ *  in the plane.
+ *  @author Felix Liu.
+ */
+public interface Locator<Type> {
+
+    /** Returns the x coordinate of V. */
+    double x(Type v);
+
+    /** Returns the y coordinate of V. */
+    double y(Type v);
+
+}
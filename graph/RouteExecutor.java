@@ -0,0 +1,186 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Answers batches of shortest-path queries over one fixed graph on a
+ *  pool of worker threads.  The graph is frozen into a CompactGraph
+ *  (or a ContractionHierarchy) that every worker reads, and each
+ *  worker thread keeps its own SearchContext from batch to batch, so
+ *  the workers share nothing that changes.  Queries are handed out
+ *  one at a time to whichever worker is free, and the results come
+ *  back in the order the queries were given.  Call shutdown when done
+ *  with me.  VLABEL and ELABEL are the label types of the graph.
+ *  @author Felix Liu
+ */
+public final class RouteExecutor<VLabel, ELabel> {
+
+    /** An executor for G, with edge weights given by applying EWEIGHTER
+     *  to the edge labels, that finds paths as
+     *  Graphs.bidirectionalPath does, guided by H, on THREADS
+     *  threads. */
+    public RouteExecutor(Graph<VLabel, ELabel> G,
+                         Distancer<? super VLabel> h,
+                         Weighting<? super ELabel> eweighter, int threads) {
+        this(new CompactGraph<VLabel, ELabel>(G, eweighter), h, threads);
+    }
+
+    /** An executor for G that finds paths as Graphs.bidirectionalPath
+     *  does, guided by H, on THREADS threads. */
+    public RouteExecutor(final CompactGraph<VLabel, ELabel> G,
+                         final Distancer<? super VLabel> h, int threads) {
+        this(G, new Router<VLabel, ELabel>() {
+            @Override
+            public List<Graph<VLabel, ELabel>.Edge>
+            route(int v0, int v1, SearchContext<VLabel, ELabel> context) {
+                return Graphs.bidirectionalPath(G, v0, v1, h, context);
+            }
+        }, threads);
+    }
+
+    /** An executor that answers queries with H on THREADS threads. */
+    public RouteExecutor(final ContractionHierarchy<VLabel, ELabel> H,
+                         int threads) {
+        this(H.graph(), new Router<VLabel, ELabel>() {
+            @Override
+            public List<Graph<VLabel, ELabel>.Edge>
+            route(int v0, int v1, SearchContext<VLabel, ELabel> context) {
+                return H.shortestPath(v0, v1);
+            }
+        }, threads);
+    }
+
+    /** An executor over G that answers each query with ROUTER on
+     *  THREADS threads. */
+    private RouteExecutor(CompactGraph<VLabel, ELabel> G,
+                          Router<VLabel, ELabel> router, int threads) {
+        _graph = G;
+        _router = router;
+        _threads = Math.max(1, threads);
+        _pool = _threads == 1 ? null : new ForkJoinPool(_threads);
+    }
+
+    /** Returns the graph my queries are answered over. */
+    public CompactGraph<VLabel, ELabel> graph() {
+        return _graph;
+    }
+
+    /** Returns the number of worker threads I use. */
+    public int threads() {
+        return _threads;
+    }
+
+    /** Returns a shortest path from FROM.get(i) to TO.get(i), for each
+     *  i, in order; an entry is null if there is no such path.  FROM
+     *  and TO must be the same length. */
+    public List<List<Graph<VLabel, ELabel>.Edge>>
+    shortestPaths(List<Graph<VLabel, ELabel>.Vertex> from,
+                  List<Graph<VLabel, ELabel>.Vertex> to) {
+        if (from.size() != to.size()) {
+            throw new IllegalArgumentException("unpaired query ends");
+        }
+        int[] v0 = new int[from.size()], v1 = new int[to.size()];
+        for (int i = 0; i < v0.length; i += 1) {
+            v0[i] = _graph.id(from.get(i));
+            v1[i] = _graph.id(to.get(i));
+        }
+        return shortestPaths(v0, v1);
+    }
+
+    /** Returns a shortest path from the vertex numbered FROM[i] to the
+     *  vertex numbered TO[i], for each i, in order; an entry is null if
+     *  there is no such path.  FROM and TO must be the same length. */
+    public List<List<Graph<VLabel, ELabel>.Edge>>
+    shortestPaths(final int[] from, final int[] to) {
+        if (from.length != to.length) {
+            throw new IllegalArgumentException("unpaired query ends");
+        }
+        final List<Graph<VLabel, ELabel>.Edge>[] results = newResults(
+            from.length);
+        final AtomicInteger next = new AtomicInteger();
+        Runnable worker = new Runnable() {
+            @Override
+            public void run() {
+                SearchContext<VLabel, ELabel> context = _contexts.get();
+                for (int i = next.getAndIncrement(); i < from.length;
+                     i = next.getAndIncrement()) {
+                    results[i] = _router.route(from[i], to[i], context);
+                }
+            }
+        };
+        runWorkers(worker, Math.min(_threads, from.length), _pool);
+        return Arrays.asList(results);
+    }
+
+    /** Stops my worker threads.  I may not be used afterwards. */
+    public void shutdown() {
+        if (_pool != null) {
+            _pool.shutdown();
+        }
+    }
+
+    /** Runs WORKERS copies of WORKER at once on POOL, and returns when
+     *  all have finished, rethrowing what the first that failed threw.
+     *  With WORKERS <= 1, runs WORKER once on the calling thread, and
+     *  POOL may be null. */
+    static void runWorkers(Runnable worker, int workers, ForkJoinPool pool) {
+        if (workers <= 1) {
+            worker.run();
+            return;
+        }
+        ArrayList<Future<?>> running = new ArrayList<Future<?>>();
+        for (int w = 0; w < workers; w += 1) {
+            running.add(pool.submit(worker));
+        }
+        try {
+            for (Future<?> f : running) {
+                f.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /** Returns an array for N results. */
+    @SuppressWarnings("unchecked")
+    private List<Graph<VLabel, ELabel>.Edge>[] newResults(int n) {
+        return (List<Graph<VLabel, ELabel>.Edge>[]) new List[n];
+    }
+
+    /** A way of answering one query. */
+    private interface Router<VLabel, ELabel> {
+        /** Returns a shortest path from the vertex numbered V0 to the
+         *  one numbered V1, or null, using CONTEXT as scratch space. */
+        List<Graph<VLabel, ELabel>.Edge>
+        route(int v0, int v1, SearchContext<VLabel, ELabel> context);
+    }
+
+    /** The graph queries are answered over. */
+    private final CompactGraph<VLabel, ELabel> _graph;
+    /** Answers one query. */
+    private final Router<VLabel, ELabel> _router;
+    /** Number of worker threads. */
+    private final int _threads;
+    /** The workers, or null if I run queries on the calling thread. */
+    private final ForkJoinPool _pool;
+    /** Each thread's search state. */
+    private final ThreadLocal<SearchContext<VLabel, ELabel>> _contexts
+        = new ThreadLocal<SearchContext<VLabel, ELabel>>() {
+            @Override
+            protected SearchContext<VLabel, ELabel> initialValue() {
+                return new SearchContext<VLabel, ELabel>();
+            }
+        };
+
+}
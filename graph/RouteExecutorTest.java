@@ -0,0 +1,102 @@
+package graph;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Random;
+
+/** Junit Tests for RouteExecutor.java
+ *  @author Felix Liu. */
+
+public class RouteExecutorTest {
+
+    /** Checks a small batch, in order, including an unreachable pair. */
+    @Test
+    public void sampleBatch() {
+        DirectedGraph<Integer, Integer> g = CompactGraphTest.sample();
+        RouteExecutor<Integer, Integer> x
+            = new RouteExecutor<Integer, Integer>(g, Graphs.ZERO_DISTANCER,
+                                                  GraphTest.EDGE, 3);
+        try {
+            CompactGraph<Integer, Integer> c = x.graph();
+            int[] from = { 0, 0, 4, 1, 2 };
+            int[] to = { 4, 1, 0, 4, 2 };
+            int[] expected = { 8, 1, -1, 7, 0 };
+            List<List<Graph<Integer, Integer>.Edge>> paths
+                = x.shortestPaths(from, to);
+            assertEquals(from.length, paths.size());
+            for (int i = 0; i < from.length; i += 1) {
+                if (expected[i] < 0) {
+                    assertEquals(null, paths.get(i));
+                } else {
+                    assertEquals(expected[i],
+                                 ContractionHierarchyTest.walk(paths.get(i),
+                                     c.vertex(from[i]), c.vertex(to[i])));
+                }
+            }
+            ArrayList<Graph<Integer, Integer>.Vertex> v0
+                = new ArrayList<Graph<Integer, Integer>.Vertex>();
+            ArrayList<Graph<Integer, Integer>.Vertex> v1
+                = new ArrayList<Graph<Integer, Integer>.Vertex>();
+            v0.add(c.vertex(0));
+            v1.add(c.vertex(4));
+            assertEquals(8, ContractionHierarchyTest.walk(
+                x.shortestPaths(v0, v1).get(0), c.vertex(0), c.vertex(4)));
+        } finally {
+            x.shutdown();
+        }
+    }
+
+    /** Checks a large batch on a random graph, run by both kinds of
+     *  executor on several threads, against single searches. */
+    @Test
+    public void randomBatch() {
+        int n = 300;
+        DirectedGraph<Integer, Integer> g = CompactGraphTest.random(62, n);
+        Random r = new Random(62);
+        CompactGraph<Integer, Integer> c
+            = new CompactGraph<Integer, Integer>(g, GraphTest.EDGE);
+        int queries = 1000;
+        int[] from = new int[queries], to = new int[queries];
+        for (int q = 0; q < queries; q += 1) {
+            from[q] = r.nextInt(n);
+            to[q] = r.nextInt(n);
+        }
+        RouteExecutor<Integer, Integer> plain
+            = new RouteExecutor<Integer, Integer>(c, Graphs.ZERO_DISTANCER,
+                                                  4);
+        RouteExecutor<Integer, Integer> contracted
+            = new RouteExecutor<Integer, Integer>(
+                new ContractionHierarchy<Integer, Integer>(c), 4);
+        try {
+            for (int round = 0; round < 2; round += 1) {
+                List<List<Graph<Integer, Integer>.Edge>> a
+                    = plain.shortestPaths(from, to);
+                List<List<Graph<Integer, Integer>.Edge>> b
+                    = contracted.shortestPaths(from, to);
+                for (int q = 0; q < queries; q += 1) {
+                    List<Graph<Integer, Integer>.Edge> expected
+                        = Graphs.shortestPath(c, from[q], to[q],
+                                              Graphs.ZERO_DISTANCER);
+                    if (expected == null) {
+                        assertEquals(null, a.get(q));
+                        assertEquals(null, b.get(q));
+                    } else {
+                        Graph<Integer, Integer>.Vertex s = c.vertex(from[q]);
+                        Graph<Integer, Integer>.Vertex t = c.vertex(to[q]);
+                        int weight = ContractionHierarchyTest.walk(expected,
+                                                                   s, t);
+                        assertEquals(weight,
+                            ContractionHierarchyTest.walk(a.get(q), s, t));
+                        assertEquals(weight,
+                            ContractionHierarchyTest.walk(b.get(q), s, t));
+                    }
+                }
+            }
+        } finally {
+            plain.shutdown();
+            contracted.shutdown();
+        }
+    }
+}
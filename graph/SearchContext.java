@@ -0,0 +1,200 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/** The working storage of a shortest-path search in Graphs: the best
+ *  known distance to each vertex, the edge each was reached by, which
+ *  vertices are closed, and the fringe, for each direction of search.
+ *  A search keeps all of its state here, and nothing in the graph, the
+ *  labels or any static field, so any number of searches may run over
+ *  the same graph at once as long as each has its own context.  A
+ *  context may be reused for one search after another; its arrays are
+ *  kept, and starting a new search of a CompactGraph costs nothing in
+ *  proportion to the size of the graph.  After a search, distance
+ *  reports what it found.  VLABEL and ELABEL are the label types of
+ *  the graphs searched.
+ *  @author Felix Liu
+ */
+public final class SearchContext<VLabel, ELabel> {
+
+    /** An empty context. */
+    public SearchContext() {
+        int cap = 16;
+        _stamp = new int[cap];
+        _closed = new int[][] { new int[cap], new int[cap] };
+        _gscore = new double[][] { new double[cap], new double[cap] };
+        _camefrom = new int[][] { new int[cap], new int[cap] };
+        _via = new int[][] { new int[cap], new int[cap] };
+        _open = new IndexedHeap[] { new IndexedHeap(cap),
+                                    new IndexedHeap(cap) };
+    }
+
+    /** Returns the weight of the shortest path the last search found
+     *  from its start to V, or Double.POSITIVE_INFINITY if it did not
+     *  reach V.  For the A* searches, this is exact for V on the
+     *  returned path and for V closer to the start than the goal (as
+     *  adjusted by the heuristic), and an upper bound otherwise. */
+    public double distance(Graph<VLabel, ELabel>.Vertex v) {
+        Integer id = _ids.get(v);
+        return id == null ? Double.POSITIVE_INFINITY : gscore(0, id);
+    }
+
+    /** Returns the weight of the shortest path the last search of a
+     *  CompactGraph found from its start to the vertex numbered V, as
+     *  for the other version of distance. */
+    public double distance(int v) {
+        return v < _stamp.length ? gscore(0, v) : Double.POSITIVE_INFINITY;
+    }
+
+    /* Used by Graphs. */
+
+    /** Begins a search over vertices numbered 0 .. N - 1, forgetting
+     *  the last one. */
+    void begin(int n) {
+        _epoch += 1;
+        _ids.clear();
+        _nodes.clear();
+        _forwardVia.clear();
+        _backwardVia.clear();
+        _open[0].clear();
+        _open[1].clear();
+        ensure(n);
+    }
+
+    /** Returns the number of VERTEX in an object-graph search, numbering
+     *  it if it has not been seen yet. */
+    int number(Graph<VLabel, ELabel>.Vertex vertex) {
+        Integer known = _ids.get(vertex);
+        if (known != null) {
+            return known;
+        }
+        int v = _nodes.size();
+        _ids.put(vertex, v);
+        _nodes.add(vertex);
+        _forwardVia.add(null);
+        _backwardVia.add(null);
+        ensure(v + 1);
+        return v;
+    }
+
+    /** Sets the weight of the label of each vertex the last
+     *  object-graph search reached to its distance, using VWEIGHTER. */
+    void report(Weighter<? super VLabel> vweighter) {
+        for (int v = 0; v < _nodes.size(); v += 1) {
+            double d = gscore(0, v);
+            if (d < Double.POSITIVE_INFINITY) {
+                vweighter.setWeight(_nodes.get(v).getLabel(), d);
+            }
+        }
+    }
+
+    /** Returns the vertex numbered V in an object-graph search. */
+    Graph<VLabel, ELabel>.Vertex vertex(int v) {
+        return _nodes.get(v);
+    }
+
+    /** Returns the best known distance to V from side SIDE (0 forward,
+     *  1 backward). */
+    double gscore(int side, int v) {
+        return _stamp[v] == _epoch ? _gscore[side][v]
+            : Double.POSITIVE_INFINITY;
+    }
+
+    /** Records that side SIDE reached V at distance D, from the vertex
+     *  numbered FROM by the edge numbered VIA (-1 at the start). */
+    void reach(int side, int v, double d, int from, int via) {
+        if (_stamp[v] != _epoch) {
+            _stamp[v] = _epoch;
+            _gscore[1 - side][v] = Double.POSITIVE_INFINITY;
+        }
+        _gscore[side][v] = d;
+        _camefrom[side][v] = from;
+        _via[side][v] = via;
+    }
+
+    /** Records that side SIDE reached the vertex numbered V at distance
+     *  D in an object-graph search, by edge E (null at the start). */
+    void reach(int side, int v, double d, Graph<VLabel, ELabel>.Edge e) {
+        reach(side, v, d, -1, -1);
+        (side == 0 ? _forwardVia : _backwardVia).set(v, e);
+    }
+
+    /** Returns the vertex from which side SIDE reached V, or -1. */
+    int camefrom(int side, int v) {
+        return _camefrom[side][v];
+    }
+
+    /** Returns the number of the edge by which side SIDE reached V. */
+    int via(int side, int v) {
+        return _via[side][v];
+    }
+
+    /** Returns the edge by which side SIDE of an object-graph search
+     *  reached the vertex numbered V, or null. */
+    Graph<VLabel, ELabel>.Edge edge(int side, int v) {
+        return (side == 0 ? _forwardVia : _backwardVia).get(v);
+    }
+
+    /** Returns true iff side SIDE has closed V. */
+    boolean closed(int side, int v) {
+        return _closed[side][v] == _epoch;
+    }
+
+    /** Closes V on side SIDE. */
+    void close(int side, int v) {
+        _closed[side][v] = _epoch;
+    }
+
+    /** Returns the fringe of side SIDE. */
+    IndexedHeap open(int side) {
+        return _open[side];
+    }
+
+    /** Makes room for vertices numbered below N. */
+    private void ensure(int n) {
+        if (n <= _stamp.length) {
+            return;
+        }
+        int cap = Math.max(n, 2 * _stamp.length);
+        _stamp = Arrays.copyOf(_stamp, cap);
+        for (int side = 0; side < 2; side += 1) {
+            _closed[side] = Arrays.copyOf(_closed[side], cap);
+            _gscore[side] = Arrays.copyOf(_gscore[side], cap);
+            _camefrom[side] = Arrays.copyOf(_camefrom[side], cap);
+            _via[side] = Arrays.copyOf(_via[side], cap);
+        }
+    }
+
+    /** The number of the current search.  An entry of _gscore is
+     *  meaningful only if the vertex's _stamp equals it, and a vertex
+     *  is closed only if its _closed entry equals it, so that all
+     *  vertices are forgotten at once by incrementing it. */
+    private int _epoch;
+    /** The search in which each vertex was last reached. */
+    private int[] _stamp;
+    /** The search in which each vertex was last closed, per side. */
+    private final int[][] _closed;
+    /** Best known distance to each vertex, per side. */
+    private final double[][] _gscore;
+    /** The vertex each vertex was reached from, per side. */
+    private final int[][] _camefrom;
+    /** The edge number each vertex was reached by, per side. */
+    private final int[][] _via;
+    /** The fringe, per side. */
+    private final IndexedHeap[] _open;
+    /** Numbers the vertices of an object-graph search. */
+    private final HashMap<Graph<VLabel, ELabel>.Vertex, Integer> _ids
+        = new HashMap<Graph<VLabel, ELabel>.Vertex, Integer>();
+    /** The vertices of an object-graph search, by number. */
+    private final ArrayList<Graph<VLabel, ELabel>.Vertex> _nodes
+        = new ArrayList<Graph<VLabel, ELabel>.Vertex>();
+    /** The edge each vertex was reached by going forward. */
+    private final ArrayList<Graph<VLabel, ELabel>.Edge> _forwardVia
+        = new ArrayList<Graph<VLabel, ELabel>.Edge>();
+    /** The edge each vertex was reached by going backward. */
+    private final ArrayList<Graph<VLabel, ELabel>.Edge> _backwardVia
+        = new ArrayList<Graph<VLabel, ELabel>.Edge>();
+
+}
@@ -1,8 +1,10 @@
 package graph;
 
 import java.util.Comparator;
-import java.util.LinkedList;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 
 /** Implements a generalized traversal of a graph.  At any given time,
  *  there is a particular set of untraversed vertices---the "fringe."
@@ -38,11 +40,91 @@ public class Traversal<VLabel, ELabel> {
 
     /** Perform a traversal of G over all vertices reachable from V.
      *  ORDER determines the ordering in which the fringe of
-     *  untraversed vertices is visited. */
+     *  untraversed vertices is visited: the next vertex visited is
+     *  always one whose label is least according to ORDER, the earliest
+     *  added among equals.  Each vertex is visited at most once and is
+     *  in the fringe at most once.  When preVisit is called on an edge
+     *  to a vertex already in the fringe, the vertex's place in the
+     *  fringe is brought up to date, so preVisit may change the label
+     *  of the vertex it leads to in ways that change its order (as when
+     *  finding shortest paths), provided it changes no other label
+     *  already in the fringe.  If the traversal stops, it may be resumed
+     *  with continueTraversing. */
     public void traverse(Graph<VLabel, ELabel> G,
                          Graph<VLabel, ELabel>.Vertex v,
                          Comparator<VLabel> order) {
+        start(G, Kind.GENERAL);
+        _fringe = new Fringe(order);
+        _expanding = null;
+        _pendingEdges = null;
+        _pendingEdge = null;
+        _fringe.add(v);
+        generalTraverse();
+    }
+
+    /** Begins a traversal of G of kind KIND, forgetting the vertices
+     *  any previous traversal reached. */
+    private void start(Graph<VLabel, ELabel> G, Kind kind) {
+        _graph = G;
+        _kind = kind;
+        _visited = new HashSet<Graph<VLabel, ELabel>.Vertex>();
+        _fringe = null;
+        _finalVertex = null;
+        _finalEdge = null;
+    }
+
+    /** Runs the general traversal described by _fringe, _visited and
+     *  _expanding until it finishes or stops. */
+    private void generalTraverse() {
+        _finalVertex = null;
+        _finalEdge = null;
+        try {
+            while (true) {
+                if (_expanding != null) {
+                    expand();
+                }
+                if (_fringe.isEmpty()) {
+                    return;
+                }
+                Graph<VLabel, ELabel>.Vertex v = _fringe.poll();
+                _visited.add(v);
+                _expanding = v;
+                try {
+                    visit(v);
+                } catch (RejectException e) {
+                    _expanding = null;
+                }
+            }
+        } catch (StopException e) {
+            _finalVertex = _expanding;
+            _finalEdge = _pendingEdge;
+        }
+    }
 
+    /** Adds the unvisited successors of _expanding to the fringe,
+     *  starting with _pendingEdge, if any, and then the rest of
+     *  _pendingEdges, calling preVisit on each edge first. */
+    private void expand() {
+        if (_pendingEdges == null) {
+            _pendingEdges = _graph.outEdges(_expanding);
+        }
+        while (_pendingEdge != null || _pendingEdges.hasNext()) {
+            if (_pendingEdge == null) {
+                _pendingEdge = _pendingEdges.next();
+            }
+            Graph<VLabel, ELabel>.Vertex w = _pendingEdge.getV(_expanding);
+            if (!_visited.contains(w)) {
+                try {
+                    preVisit(_pendingEdge, _expanding);
+                    _fringe.add(w);
+                } catch (RejectException e) {
+                    /* Leave W out. */
+                }
+            }
+            _pendingEdge = null;
+        }
+        _expanding = null;
+        _pendingEdges = null;
     }
 
     /** Performs a depth-first traversal of G over all vertices
@@ -50,25 +132,66 @@ public class Traversal<VLabel, ELabel> {
      *  vertices are added to it or removed from it at one end in
      *  an undefined order.  After the traversal of all successors of
      *  a node is complete, the node itself is revisited by calling
-     *  the postVisit method on it. */
+     *  the postVisit method on it.  The vertices whose successors are
+     *  still being traversed are kept on an explicit stack, with the
+     *  position reached in each one's edges, rather than on the
+     *  thread's stack, so arbitrarily long paths may be traversed. */
     public void depthFirstTraverse(Graph<VLabel, ELabel> G,
                                    Graph<VLabel, ELabel>.Vertex v) {
-        v.discover();
-        visit(v);
-        Iteration<Graph<VLabel, ELabel>.Edge> iterator = G.outEdges(v);
-        while (iterator.hasNext()) {
-            Graph<VLabel, ELabel>.Edge current = iterator.next();
-            if (!current.status("explored")) {
-                Graph<VLabel, ELabel>.Vertex passer = current.getV1();
-                if (!passer.status("discovered")) {
-                    preVisit(current, current.getV0());
-                    current.discover();
-                    depthFirstTraverse(G, passer);
+        start(G, Kind.DEPTH_FIRST);
+        depthFirst(v);
+    }
+
+    /** Continues the depth-first traversal of _graph from V, unless V
+     *  has been reached already. */
+    private void depthFirst(Graph<VLabel, ELabel>.Vertex v) {
+        if (!_visited.add(v)) {
+            return;
+        }
+        ArrayList<Graph<VLabel, ELabel>.Vertex> path
+            = new ArrayList<Graph<VLabel, ELabel>.Vertex>();
+        ArrayList<Iteration<Graph<VLabel, ELabel>.Edge>> edges
+            = new ArrayList<Iteration<Graph<VLabel, ELabel>.Edge>>();
+        path.add(v);
+        edges.add(expands(v) ? _graph.outEdges(v) : null);
+        while (!path.isEmpty()) {
+            int top = path.size() - 1;
+            Iteration<Graph<VLabel, ELabel>.Edge> iterator = edges.get(top);
+            Graph<VLabel, ELabel>.Vertex passer = null;
+            while (passer == null && iterator != null
+                   && iterator.hasNext()) {
+                Graph<VLabel, ELabel>.Edge current = iterator.next();
+                if (!_visited.contains(current.getV1())) {
+                    try {
+                        preVisit(current, current.getV0());
+                        passer = current.getV1();
+                    } catch (RejectException e) {
+                        /* Leave it out. */
+                    }
                 }
             }
+            if (passer == null) {
+                Graph<VLabel, ELabel>.Vertex done = path.remove(top);
+                edges.remove(top);
+                postVisit(done);
+            } else {
+                _visited.add(passer);
+                path.add(passer);
+                edges.add(expands(passer) ? _graph.outEdges(passer)
+                          : null);
+            }
+        }
+    }
+
+    /** Visits V, returning false iff the visit rejects its
+     *  successors. */
+    private boolean expands(Graph<VLabel, ELabel>.Vertex v) {
+        try {
+            visit(v);
+            return true;
+        } catch (RejectException e) {
+            return false;
         }
-        v.explore();
-        postVisit(v);
     }
 
 
@@ -77,30 +200,55 @@ public class Traversal<VLabel, ELabel> {
      *  vertices are added to it at one end and removed from it at the
      *  other in an undefined order.  After the traversal of all successors of
      *  a node is complete, the node itself is revisited by calling
-     *  the postVisit method on it. */
+     *  the postVisit method on it.  Each vertex is visited as it is
+     *  added to the fringe, and its out-edges are scanned once, when
+     *  it is removed, so the traversal takes time proportional to the
+     *  number of vertices and edges reached.  The postVisits come at
+     *  the end, in the order the vertices left the fringe. */
     public void breadthFirstTraverse(Graph<VLabel, ELabel> G,
                                      Graph<VLabel, ELabel>.Vertex v) {
-        LinkedList<Graph<VLabel, ELabel>.Vertex> queue
-            = new LinkedList<Graph<VLabel, ELabel>.Vertex>();
+        start(G, Kind.BREADTH_FIRST);
+        breadthFirst(v);
+    }
+
+    /** Continues the breadth-first traversal of _graph from V, unless
+     *  V has been reached already. */
+    private void breadthFirst(Graph<VLabel, ELabel>.Vertex v) {
+        if (!_visited.add(v)) {
+            return;
+        }
+        ArrayDeque<Graph<VLabel, ELabel>.Vertex> queue
+            = new ArrayDeque<Graph<VLabel, ELabel>.Vertex>();
         ArrayList<Graph<VLabel, ELabel>.Vertex> vList
             = new ArrayList<Graph<VLabel, ELabel>.Vertex>();
+        HashSet<Graph<VLabel, ELabel>.Vertex> barren
+            = new HashSet<Graph<VLabel, ELabel>.Vertex>();
         queue.add(v);
-        visit(v);
-        v.discover();
-        while (queue.size() != 0) {
-            vList.add(queue.removeFirst());
-            for (Graph<VLabel, ELabel>.Vertex item : vList) {
-                Iteration<Graph<VLabel, ELabel>.Edge> iterator
-                    = G.outEdges(item);
-                while (iterator.hasNext()) {
-                    Graph<VLabel, ELabel>.Edge current = iterator.next();
-                    Graph<VLabel, ELabel>.Vertex tempV = current.getV0();
-                    Graph<VLabel, ELabel>.Vertex passer = current.getV1();
-                    if (!passer.status("discovered")) {
+        if (!expands(v)) {
+            barren.add(v);
+        }
+        while (!queue.isEmpty()) {
+            Graph<VLabel, ELabel>.Vertex item = queue.removeFirst();
+            vList.add(item);
+            if (barren.contains(item)) {
+                continue;
+            }
+            Iteration<Graph<VLabel, ELabel>.Edge> iterator
+                = _graph.outEdges(item);
+            while (iterator.hasNext()) {
+                Graph<VLabel, ELabel>.Edge current = iterator.next();
+                Graph<VLabel, ELabel>.Vertex tempV = current.getV0();
+                Graph<VLabel, ELabel>.Vertex passer = current.getV1();
+                if (!_visited.contains(passer)) {
+                    try {
                         preVisit(current, tempV);
-                        passer.discover();
-                        visit(passer);
-                        queue.add(passer);
+                    } catch (RejectException e) {
+                        continue;
+                    }
+                    _visited.add(passer);
+                    queue.add(passer);
+                    if (!expands(passer)) {
+                        barren.add(passer);
                     }
                 }
             }
@@ -112,8 +260,33 @@ public class Traversal<VLabel, ELabel> {
 
     /** Continue the previous traversal starting from V.
      *  Continuing a traversal means that we do not traverse
-     *  vertices or edges that have been traversed previously. */
+     *  vertices or edges that have been traversed previously.  A
+     *  depth-first or breadth-first traversal goes on from V as it
+     *  would have had V been one of the successors of the vertices it
+     *  has reached, and does nothing if V is one of them.  For a
+     *  traversal begun by traverse, this first finishes adding the
+     *  successors of the vertex it stopped at (retrying the preVisit
+     *  that stopped it, if any), adds V to the fringe unless it has
+     *  already been visited, and then carries on with the fringe as the
+     *  traversal left it. */
     public void continueTraversing(Graph<VLabel, ELabel>.Vertex v) {
+        if (_kind == null) {
+            return;
+        }
+        switch (_kind) {
+        case DEPTH_FIRST:
+            depthFirst(v);
+            return;
+        case BREADTH_FIRST:
+            breadthFirst(v);
+            return;
+        default:
+            break;
+        }
+        if (!_visited.contains(v)) {
+            _fringe.add(v);
+        }
+        generalTraverse();
     }
 
     /** If the traversal ends prematurely, returns the Vertex argument to
@@ -166,4 +339,131 @@ public class Traversal<VLabel, ELabel> {
     /** The graph currently being traversed. */
     protected Graph<VLabel, ELabel> _graph;
 
+    /** The fringe of a general traversal: an indexed binary heap of
+     *  vertices, least label first according to a Comparator, ties
+     *  going to the vertex added first. */
+    private class Fringe {
+
+        /** An empty fringe ordered by ORDER. */
+        Fringe(Comparator<VLabel> order) {
+            _order = order;
+        }
+
+        /** Returns true iff I am empty. */
+        boolean isEmpty() {
+            return _heap.isEmpty();
+        }
+
+        /** Adds V to me, or restores my order around V if it is
+         *  already here. */
+        void add(Graph<VLabel, ELabel>.Vertex v) {
+            Integer at = _pos.get(v);
+            if (at == null) {
+                _heap.add(v);
+                _seq.add(_added);
+                _added += 1;
+                _pos.put(v, _heap.size() - 1);
+                siftUp(_heap.size() - 1);
+            } else {
+                siftDown(siftUp(at));
+            }
+        }
+
+        /** Removes and returns my first vertex. */
+        Graph<VLabel, ELabel>.Vertex poll() {
+            Graph<VLabel, ELabel>.Vertex result = _heap.get(0);
+            int last = _heap.size() - 1;
+            swap(0, last);
+            _heap.remove(last);
+            _seq.remove(last);
+            _pos.remove(result);
+            if (last > 0) {
+                siftDown(0);
+            }
+            return result;
+        }
+
+        /** Returns true iff entry I belongs before entry J. */
+        private boolean before(int i, int j) {
+            int c = _order.compare(_heap.get(i).getLabel(),
+                                   _heap.get(j).getLabel());
+            return c < 0 || c == 0 && _seq.get(i) < _seq.get(j);
+        }
+
+        /** Moves entry I up to its place, returning where it ends. */
+        private int siftUp(int i) {
+            while (i > 0 && before(i, (i - 1) / 2)) {
+                swap(i, (i - 1) / 2);
+                i = (i - 1) / 2;
+            }
+            return i;
+        }
+
+        /** Moves entry I down to its place. */
+        private void siftDown(int i) {
+            int n = _heap.size();
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= n) {
+                    return;
+                }
+                if (child + 1 < n && before(child + 1, child)) {
+                    child += 1;
+                }
+                if (!before(child, i)) {
+                    return;
+                }
+                swap(i, child);
+                i = child;
+            }
+        }
+
+        /** Exchanges entries I and J. */
+        private void swap(int i, int j) {
+            Graph<VLabel, ELabel>.Vertex vi = _heap.get(i);
+            Graph<VLabel, ELabel>.Vertex vj = _heap.get(j);
+            _heap.set(i, vj);
+            _heap.set(j, vi);
+            _seq.set(i, _seq.set(j, _seq.get(i)));
+            _pos.put(vj, i);
+            _pos.put(vi, j);
+        }
+
+        /** The ordering on labels. */
+        private final Comparator<VLabel> _order;
+        /** The heap of vertices. */
+        private final ArrayList<Graph<VLabel, ELabel>.Vertex> _heap
+            = new ArrayList<Graph<VLabel, ELabel>.Vertex>();
+        /** The order in which each entry of _heap was added. */
+        private final ArrayList<Long> _seq = new ArrayList<Long>();
+        /** The index of each vertex in _heap. */
+        private final HashMap<Graph<VLabel, ELabel>.Vertex, Integer> _pos
+            = new HashMap<Graph<VLabel, ELabel>.Vertex, Integer>();
+        /** The number of vertices ever added. */
+        private long _added;
+    }
+
+    /** The kinds of traversal. */
+    private enum Kind { DEPTH_FIRST, BREADTH_FIRST, GENERAL }
+
+    /** The kind of the last traversal, or null if there has been
+     *  none. */
+    private Kind _kind;
+    /** The vertices the last traversal has reached.  These are kept
+     *  here, rather than marked in the graph, so that a graph may be
+     *  traversed any number of times, and by several traversals at
+     *  once. */
+    private HashSet<Graph<VLabel, ELabel>.Vertex> _visited;
+    /** The fringe of the last traversal, if it was a general one. */
+    private Fringe _fringe;
+    /** The vertex whose successors the last general traversal was adding
+     *  to the fringe when it stopped, or null. */
+    private Graph<VLabel, ELabel>.Vertex _expanding;
+    /** The edges of _expanding not yet considered, or null if none have
+     *  been. */
+    private Iteration<Graph<VLabel, ELabel>.Edge> _pendingEdges;
+    /** The edge of _expanding whose preVisit stopped the traversal, or
+     *  null. */
+    private Graph<VLabel, ELabel>.Edge _pendingEdge;
+
 }
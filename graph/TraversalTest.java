@@ -6,6 +6,10 @@ import java.lang.reflect.Field;
 import graph.Graph.Vertex;
 import graph.Graph.Edge;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 
 /** Junit Tests for Traversal.java
  *  @author Felix Liu. */
@@ -112,8 +116,352 @@ public class TraversalTest {
         test.breadthFirstTraverse(g, vA);
     }
 
+    /** Records the labels traversed, optionally stopping at or
+     *  rejecting given labels. */
+    private static class Recorder extends Traversal<Integer, Integer> {
 
+        /** Labels visited, in order. */
+        ArrayList<Integer> visited = new ArrayList<Integer>();
+        /** Label whose visit stops the traversal, or null. */
+        Integer stopAt;
+        /** Label whose visit is rejected, or null. */
+        Integer rejectAt;
+        /** Label whose preVisit is rejected, or null. */
+        Integer rejectEdgeTo;
+        /** Label whose first preVisit stops the traversal, or null. */
+        Integer stopEdgeTo;
 
-}
+        @Override
+        protected void preVisit(Graph<Integer, Integer>.Edge e,
+                                Graph<Integer, Integer>.Vertex v0) {
+            Integer to = e.getV(v0).getLabel();
+            if (to.equals(stopEdgeTo)) {
+                stopEdgeTo = null;
+                throw new StopException();
+            }
+            if (to.equals(rejectEdgeTo)) {
+                throw new RejectException();
+            }
+        }
+
+        @Override
+        protected void visit(Graph<Integer, Integer>.Vertex v) {
+            visited.add(v.getLabel());
+            if (v.getLabel().equals(rejectAt)) {
+                throw new RejectException();
+            }
+            if (v.getLabel().equals(stopAt)) {
+                stopAt = null;
+                throw new StopException();
+            }
+        }
+    }
+
+    /** Orders integer labels from smallest to largest. */
+    private static final Comparator<Integer> ASCENDING =
+        new Comparator<Integer>() {
+            @Override
+            public int compare(Integer x, Integer y) {
+                return x.compareTo(y);
+            }
+        };
+
+    /** Returns a directed graph on 0 .. 7 with edges 0->5, 0->2, 0->6,
+     *  2->1, 2->7, 5->3, 1->4, and 4->0, in that order.  Its vertices are
+     *  left in VS. */
+    private static DirectedGraph<Integer, Integer> ordered(
+        ArrayList<Graph<Integer, Integer>.Vertex> vs) {
+        DirectedGraph<Integer, Integer> g
+            = new DirectedGraph<Integer, Integer>();
+        for (int i = 0; i < 8; i += 1) {
+            vs.add(g.add(i));
+        }
+        int[][] edges = { {0, 5}, {0, 2}, {0, 6}, {2, 1}, {2, 7},
+                          {5, 3}, {1, 4}, {4, 0} };
+        for (int[] e : edges) {
+            g.add(vs.get(e[0]), vs.get(e[1]));
+        }
+        return g;
+    }
+
+    /** The general traversal visits the least label in its fringe
+     *  first, and each vertex once. */
+    @Test
+    public void orderedTraverse() {
+        ArrayList<Graph<Integer, Integer>.Vertex> vs =
+            new ArrayList<Graph<Integer, Integer>.Vertex>();
+        DirectedGraph<Integer, Integer> g = ordered(vs);
+        Recorder r = new Recorder();
+        r.traverse(g, vs.get(0), ASCENDING);
+        assertEquals(Arrays.asList(0, 2, 1, 4, 5, 3, 6, 7), r.visited);
+        assertNull(r.finalVertex());
+        r = new Recorder();
+        r.traverse(g, vs.get(0), Collections.reverseOrder(ASCENDING));
+        assertEquals(Arrays.asList(0, 6, 5, 3, 2, 7, 1, 4), r.visited);
+    }
+
+    /** Rejecting a vertex in visit keeps its successors out, and rejecting
+     *  an edge in preVisit keeps its end out. */
+    @Test
+    public void orderedReject() {
+        ArrayList<Graph<Integer, Integer>.Vertex> vs =
+            new ArrayList<Graph<Integer, Integer>.Vertex>();
+        DirectedGraph<Integer, Integer> g = ordered(vs);
+        Recorder r = new Recorder();
+        r.rejectAt = 2;
+        r.traverse(g, vs.get(0), ASCENDING);
+        assertEquals(Arrays.asList(0, 2, 5, 3, 6), r.visited);
+        r = new Recorder();
+        r.rejectEdgeTo = 5;
+        r.traverse(g, vs.get(0), ASCENDING);
+        assertEquals(Arrays.asList(0, 2, 1, 4, 6, 7), r.visited);
+    }
+
+    /** A stopped traversal resumes where it left off, visiting nothing
+     *  twice. */
+    @Test
+    public void orderedContinue() {
+        ArrayList<Graph<Integer, Integer>.Vertex> vs =
+            new ArrayList<Graph<Integer, Integer>.Vertex>();
+        DirectedGraph<Integer, Integer> g = ordered(vs);
+        Recorder r = new Recorder();
+        r.stopAt = 1;
+        r.traverse(g, vs.get(0), ASCENDING);
+        assertEquals(Arrays.asList(0, 2, 1), r.visited);
+        assertSame(vs.get(1), r.finalVertex());
+        assertNull(r.finalEdge());
+        r.stopEdgeTo = 3;
+        r.continueTraversing(vs.get(0));
+        assertEquals(Arrays.asList(0, 2, 1, 4, 5), r.visited);
+        assertSame(vs.get(5), r.finalVertex());
+        assertSame(vs.get(3), r.finalEdge().getV1());
+        r.continueTraversing(vs.get(0));
+        assertEquals(Arrays.asList(0, 2, 1, 4, 5, 3, 6, 7), r.visited);
+        assertNull(r.finalVertex());
+        r.continueTraversing(vs.get(6));
+        assertEquals(8, r.visited.size());
+    }
+
+    /** Changing the label of a vertex already in the fringe from preVisit
+     *  changes its place there, as Dijkstra's algorithm needs. */
+    @Test
+    public void orderedDecreaseKey() {
+        final HashMap<String, Double> dist = new HashMap<String, Double>();
+        DirectedGraph<String, Double> g = new DirectedGraph<String, Double>();
+        Graph<String, Double>.Vertex a = g.add("a"), b = g.add("b"),
+            c = g.add("c"), d = g.add("d");
+        g.add(a, b, 1.0);
+        g.add(a, c, 5.0);
+        g.add(b, c, 1.0);
+        g.add(a, d, 3.0);
+        dist.put("a", 0.0);
+        final ArrayList<String> order = new ArrayList<String>();
+        Traversal<String, Double> dijkstra = new Traversal<String, Double>() {
+            @Override
+            protected void preVisit(Graph<String, Double>.Edge e,
+                                    Graph<String, Double>.Vertex v0) {
+                String w = e.getV(v0).getLabel();
+                double via = dist.get(v0.getLabel()) + e.getLabel();
+                if (!dist.containsKey(w) || via < dist.get(w)) {
+                    dist.put(w, via);
+                }
+            }
 
+            @Override
+            protected void visit(Graph<String, Double>.Vertex v) {
+                order.add(v.getLabel());
+            }
+        };
+        dijkstra.traverse(g, a, new Comparator<String>() {
+            @Override
+            public int compare(String x, String y) {
+                return Double.compare(dist.get(x), dist.get(y));
+            }
+        });
+        assertEquals(Arrays.asList("a", "b", "c", "d"), order);
+        assertEquals(2.0, dist.get("c"), 0.0);
+    }
+
+    /** Logs every callback of a traversal. */
+    private static class Logger extends Traversal<String, String> {
+
+        /** The callbacks made, in order. */
+        ArrayList<String> log = new ArrayList<String>();
+
+        @Override
+        protected void preVisit(Graph<String, String>.Edge e,
+                                Graph<String, String>.Vertex v0) {
+            log.add("pre " + v0.getLabel() + e.getV(v0).getLabel());
+        }
+
+        @Override
+        protected void visit(Graph<String, String>.Vertex v) {
+            log.add("visit " + v.getLabel());
+        }
 
+        @Override
+        protected void postVisit(Graph<String, String>.Vertex v) {
+            log.add("post " + v.getLabel());
+        }
+    }
+
+    /** Depth-first traversal makes its callbacks in the order a
+     *  recursive traversal would. */
+    @Test
+    public void depthFirstOrder() {
+        DirectedGraph<String, String> g = new DirectedGraph<String, String>();
+        Graph<String, String>.Vertex a = g.add("a"), b = g.add("b"),
+            c = g.add("c"), d = g.add("d");
+        g.add(a, b);
+        g.add(a, c);
+        g.add(b, d);
+        g.add(c, d);
+        g.add(d, a);
+        Logger logger = new Logger();
+        logger.depthFirstTraverse(g, a);
+        assertEquals(Arrays.asList("visit a", "pre ab", "visit b",
+                                   "pre bd", "visit d", "post d",
+                                   "post b", "pre ac", "visit c",
+                                   "post c", "post a"),
+                     logger.log);
+    }
+
+    /** Depth-first traversal of a path far longer than the thread's
+     *  stack could hold frames for. */
+    @Test
+    public void depthFirstDeep() {
+        final int n = 200000;
+        DirectedGraph<Integer, Integer> g
+            = new DirectedGraph<Integer, Integer>();
+        Graph<Integer, Integer>.Vertex first = g.add(0), last = first;
+        for (int i = 1; i < n; i += 1) {
+            Graph<Integer, Integer>.Vertex next = g.add(i);
+            g.add(last, next);
+            last = next;
+        }
+        final ArrayList<Integer> posts = new ArrayList<Integer>();
+        new Traversal<Integer, Integer>() {
+            @Override
+            protected void postVisit(Graph<Integer, Integer>.Vertex v) {
+                posts.add(v.getLabel());
+            }
+        }.depthFirstTraverse(g, first);
+        assertEquals(n, posts.size());
+        assertEquals(n - 1, (int) posts.get(0));
+        assertEquals(0, (int) posts.get(n - 1));
+    }
+
+    /** Breadth-first traversal visits vertices as they enter the fringe
+     *  and postVisits them all at the end, in the same order. */
+    @Test
+    public void breadthFirstOrder() {
+        DirectedGraph<String, String> g = new DirectedGraph<String, String>();
+        Graph<String, String>.Vertex a = g.add("a"), b = g.add("b"),
+            c = g.add("c"), d = g.add("d");
+        g.add(a, b);
+        g.add(a, c);
+        g.add(b, d);
+        g.add(c, d);
+        g.add(d, a);
+        Logger logger = new Logger();
+        logger.breadthFirstTraverse(g, a);
+        assertEquals(Arrays.asList("visit a", "pre ab", "visit b",
+                                   "pre ac", "visit c", "pre bd",
+                                   "visit d", "post a", "post b",
+                                   "post c", "post d"),
+                     logger.log);
+    }
+
+    /** Breadth-first traversal of a long path takes linear time. */
+    @Test(timeout = 10000)
+    public void breadthFirstLong() {
+        final int n = 200000;
+        DirectedGraph<Integer, Integer> g
+            = new DirectedGraph<Integer, Integer>();
+        Graph<Integer, Integer>.Vertex first = g.add(0), last = first;
+        for (int i = 1; i < n; i += 1) {
+            Graph<Integer, Integer>.Vertex next = g.add(i);
+            g.add(last, next);
+            last = next;
+        }
+        final ArrayList<Integer> visits = new ArrayList<Integer>();
+        new Traversal<Integer, Integer>() {
+            @Override
+            protected void visit(Graph<Integer, Integer>.Vertex v) {
+                visits.add(v.getLabel());
+            }
+        }.breadthFirstTraverse(g, first);
+        assertEquals(n, visits.size());
+        assertEquals(n - 1, (int) visits.get(n - 1));
+    }
+
+    /** A graph may be traversed again, and a depth-first traversal
+     *  continued from another vertex reaches only what it had not. */
+    @Test
+    public void repeatedTraversals() {
+        DirectedGraph<String, String> g = new DirectedGraph<String, String>();
+        Graph<String, String>.Vertex a = g.add("a"), b = g.add("b"),
+            c = g.add("c");
+        g.add(a, b);
+        g.add(c, b);
+        Logger first = new Logger(), second = new Logger();
+        first.depthFirstTraverse(g, a);
+        second.depthFirstTraverse(g, a);
+        assertEquals(first.log, second.log);
+        assertEquals(Arrays.asList("visit a", "pre ab", "visit b",
+                                   "post b", "post a"), first.log);
+        first.log.clear();
+        first.continueTraversing(c);
+        assertEquals(Arrays.asList("visit c", "post c"), first.log);
+        first.log.clear();
+        first.continueTraversing(b);
+        assertTrue(first.log.isEmpty());
+        second.log.clear();
+        second.breadthFirstTraverse(g, c);
+        second.breadthFirstTraverse(g, c);
+        assertEquals(Arrays.asList("visit c", "pre cb", "visit b",
+                                   "post c", "post b", "visit c",
+                                   "pre cb", "visit b", "post c",
+                                   "post b"), second.log);
+    }
+
+    /** Depth-first and breadth-first traversals honor RejectException
+     *  from preVisit and visit. */
+    @Test
+    public void rejectInDepthAndBreadthFirst() {
+        DirectedGraph<String, String> g = new DirectedGraph<String, String>();
+        Graph<String, String>.Vertex a = g.add("a"), b = g.add("b"),
+            c = g.add("c"), d = g.add("d");
+        g.add(a, b);
+        g.add(a, c);
+        g.add(b, d);
+        Logger logger = new Logger() {
+            @Override
+            protected void preVisit(Graph<String, String>.Edge e,
+                                    Graph<String, String>.Vertex v0) {
+                super.preVisit(e, v0);
+                if (e.getV1().getLabel().equals("c")) {
+                    throw new RejectException();
+                }
+            }
+
+            @Override
+            protected void visit(Graph<String, String>.Vertex v) {
+                super.visit(v);
+                if (v.getLabel().equals("b")) {
+                    throw new RejectException();
+                }
+            }
+        };
+        logger.depthFirstTraverse(g, a);
+        assertEquals(Arrays.asList("visit a", "pre ab", "visit b",
+                                   "post b", "pre ac", "post a"),
+                     logger.log);
+        logger.log.clear();
+        logger.breadthFirstTraverse(g, a);
+        assertEquals(Arrays.asList("visit a", "pre ab", "visit b",
+                                   "pre ac", "post a", "post b"),
+                     logger.log);
+    }
+
+}
@@ -6,7 +6,13 @@ import org.junit.runners.Suite;
 
 @Suite.SuiteClasses({
     GraphTest.class,
-    TraversalTest.class,
+    TraversalTest.class,
+    CompactGraphTest.class,
+    LandmarksTest.class,
+    IndexedHeapTest.class,
+    ContractionHierarchyTest.class,
+    RouteExecutorTest.class,
+    KdTreeTest.class,
 })
 
 /** Collects all the UnitTestClasses so RunTests can run
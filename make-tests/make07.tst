@@ -0,0 +1,6 @@
+echo Set 1
+java -ea make.Main -f make-tests/make01.mk -D make-tests/file01 -j 4 -O foo.o foo.c foo
+echo Set 2
+java -ea make.Main -f make-tests/make03.mk -D make-tests/file03 -j 4 -O A B C
+echo Set 3
+java -ea make.Main -f make-tests/make02.mk -D make-tests/file02 -j 2 -O T1
@@ -0,0 +1,10 @@
+A: B
+	echo A
+B: C
+	echo B
+C: A D
+	echo C
+D:
+	echo D
+E: D
+	echo E
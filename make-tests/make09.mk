@@ -0,0 +1,8 @@
+A: B C
+	echo A
+B: D
+	echo B
+D:
+	echo D
+E: X B
+	echo E
@@ -0,0 +1 @@
+java -ea make.Main -f make-tests/make08.mk -D make-tests/file08 E A
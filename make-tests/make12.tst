@@ -0,0 +1 @@
+java -ea make.Main -f make-tests/make09.mk -D make-tests/file09 -j 2 -O E
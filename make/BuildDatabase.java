@@ -0,0 +1,252 @@
+package make;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/** What make knew about each target when it last finished: the
+ *  target's time, a hash of its commands, its prerequisites, and
+ *  whether it was then up to date.  A target whose time, commands and
+ *  prerequisites are all as recorded, that was up to date, and none of
+ *  whose prerequisites has changed, would print nothing and change
+ *  nothing if built again, so make need not decide or build it.  Any
+ *  file below a target may have changed, so make still walks all that
+ *  its targets depend on, checking each target against its entry as it
+ *  reaches it; it records afresh only the targets it then has to
+ *  decide, and rewrites the file only if one of their entries
+ *  changed.  The database is kept in a file, all big-endian, as
+ *      MAGIC VERSION #strings #targets
+ *      for each string:  its length in UTF-8 bytes, then the bytes
+ *      for each target:  name time hash upToDate #prerequisites
+ *                        prerequisite ...
+ *  where the time is a double (NaN for none), the hash a long,
+ *  upToDate a byte, and everything else an int, with names given as
+ *  indices into the string table.
+ *  @author Felix Liu
+ */
+final class BuildDatabase {
+
+    /** First int of a database file: "MKDB". */
+    static final int MAGIC = 0x4d4b4442;
+    /** Version of the format I write. */
+    static final int VERSION = 1;
+
+    /** An empty database. */
+    BuildDatabase() {
+    }
+
+    /** Returns the database in FILE, or an empty one if FILE does not
+     *  exist or is not a database of my version. */
+    static BuildDatabase read(File file) {
+        BuildDatabase db = new BuildDatabase();
+        if (!file.isFile()) {
+            return db;
+        }
+        try (DataInputStream in = new DataInputStream(
+                 new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return db;
+            }
+            db._changed = false;
+            String[] strings = new String[in.readInt()];
+            int targets = in.readInt();
+            for (int i = 0; i < strings.length; i += 1) {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            for (int i = 0; i < targets; i += 1) {
+                String name = strings[in.readInt()];
+                double time = in.readDouble();
+                long hash = in.readLong();
+                boolean upToDate = in.readByte() != 0;
+                String[] prereqs = new String[in.readInt()];
+                for (int k = 0; k < prereqs.length; k += 1) {
+                    prereqs[k] = strings[in.readInt()];
+                }
+                db._entries.put(name,
+                                new Entry(time, hash, upToDate, prereqs));
+            }
+        } catch (IOException | IndexOutOfBoundsException
+                 | NegativeArraySizeException e) {
+            return new BuildDatabase();
+        }
+        return db;
+    }
+
+    /** Writes me to FILE. */
+    void write(File file) throws IOException {
+        HashMap<String, Integer> ids = new HashMap<String, Integer>();
+        ArrayList<String> strings = new ArrayList<String>();
+        for (String name : _entries.keySet()) {
+            intern(name, ids, strings);
+            for (String p : _entries.get(name).prereqs) {
+                intern(p, ids, strings);
+            }
+        }
+        try (DataOutputStream out = new DataOutputStream(
+                 new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(strings.size());
+            out.writeInt(_entries.size());
+            for (String s : strings) {
+                byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            for (String name : _entries.keySet()) {
+                Entry e = _entries.get(name);
+                out.writeInt(ids.get(name));
+                out.writeDouble(e.time);
+                out.writeLong(e.hash);
+                out.writeByte(e.upToDate ? 1 : 0);
+                out.writeInt(e.prereqs.length);
+                for (String p : e.prereqs) {
+                    out.writeInt(ids.get(p));
+                }
+            }
+        }
+    }
+
+    /** Returns the number of targets I know about. */
+    int size() {
+        return _entries.size();
+    }
+
+    /** Returns true iff I have changed since I was read, so that I need
+     *  to be written again. */
+    boolean changed() {
+        return _changed;
+    }
+
+    /** Returns true iff the target NAME was up to date when I recorded
+     *  it, and its commands, prerequisites and time, as COMMANDS,
+     *  PARENTS and TIMES give them now, are as I recorded them.  Such a
+     *  target needs no building if none of its prerequisites does. */
+    boolean current(String name, HashMap<String, ArrayList<String>> commands,
+                    HashMap<String, ArrayList<String>> parents,
+                    HashMap<String, Double> times) {
+        Entry e = _entries.get(name);
+        return e != null && e.upToDate
+            && Double.compare(e.time, time(times, name)) == 0
+            && e.hash == hash(commands.get(name))
+            && Arrays.equals(e.prereqs, names(parents.get(name)));
+    }
+
+    /** Records the targets NAMES as COMMANDS, PARENTS and TIMES give
+     *  them after a build, leaving what I know of others as it is. */
+    void record(List<String> names,
+                HashMap<String, ArrayList<String>> commands,
+                HashMap<String, ArrayList<String>> parents,
+                HashMap<String, Double> times) {
+        for (String name : names) {
+            String[] prereqs = names(parents.get(name));
+            double own = time(times, name);
+            boolean rebuild = Double.isNaN(own), broken = false;
+            for (String p : prereqs) {
+                double t = time(times, p);
+                broken |= !Double.isNaN(own) && Double.isNaN(t);
+                rebuild |= t > own;
+            }
+            boolean upToDate = !broken
+                && !(rebuild && commands.containsKey(name));
+            Entry e = new Entry(own, hash(commands.get(name)), upToDate,
+                                prereqs);
+            if (!e.same(_entries.put(name, e))) {
+                _changed = true;
+            }
+        }
+    }
+
+    /** Returns the time TIMES gives NAME, or NaN if none. */
+    private static double time(HashMap<String, Double> times, String name) {
+        Double t = times.get(name);
+        return t == null ? Double.NaN : t;
+    }
+
+    /** Returns a hash (FNV-1a) of the command lines LINES, which may be
+     *  null. */
+    private static long hash(List<String> lines) {
+        if (lines == null) {
+            return 0;
+        }
+        long h = FNV_BASIS;
+        for (String line : lines) {
+            for (int i = 0; i < line.length(); i += 1) {
+                h = FNV_PRIME * (h ^ line.charAt(i));
+            }
+            h = FNV_PRIME * (h ^ '\n');
+        }
+        return h;
+    }
+
+    /** Returns NAMES, which may be null, as an array. */
+    private static String[] names(List<String> names) {
+        return names == null ? NO_NAMES : names.toArray(NO_NAMES);
+    }
+
+    /** Gives S an index in STRINGS, recorded in IDS, if it has none. */
+    private static void intern(String s, HashMap<String, Integer> ids,
+                               ArrayList<String> strings) {
+        if (!ids.containsKey(s)) {
+            ids.put(s, strings.size());
+            strings.add(s);
+        }
+    }
+
+    /** What I know about one target. */
+    private static final class Entry {
+        /** A target with time TIME (NaN if none), commands with hash
+         *  HASH and prerequisites PREREQS, which was up to date iff
+         *  UPTODATE. */
+        Entry(double time, long hash, boolean upToDate, String[] prereqs) {
+            this.time = time;
+            this.hash = hash;
+            this.upToDate = upToDate;
+            this.prereqs = prereqs;
+        }
+
+        /** The target's time, or NaN. */
+        final double time;
+        /** The hash of its commands. */
+        final long hash;
+        /** True iff building it again would do nothing. */
+        final boolean upToDate;
+        /** Its prerequisites, in order. */
+        final String[] prereqs;
+
+        /** Returns true iff OTHER, which may be null, records the same
+         *  as I do. */
+        boolean same(Entry other) {
+            return other != null && Double.compare(time, other.time) == 0
+                && hash == other.hash && upToDate == other.upToDate
+                && Arrays.equals(prereqs, other.prereqs);
+        }
+    }
+
+    /** Parameters of the FNV-1a hash. */
+    private static final long FNV_BASIS = 0xcbf29ce484222325L,
+        FNV_PRIME = 0x100000001b3L;
+
+    /** An empty array of names. */
+    private static final String[] NO_NAMES = new String[0];
+
+    /** What I know, by target name. */
+    private final HashMap<String, Entry> _entries
+        = new HashMap<String, Entry>();
+
+    /** True iff I differ from the file I was read from, if any. */
+    private boolean _changed = true;
+
+}
@@ -0,0 +1,370 @@
+package make;
+
+import graph.Graph;
+import graph.Traversal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/** Builds targets of a makefile's dependency graph.  Each target's
+ *  staleness is decided exactly once, after all of its prerequisites,
+ *  as described in settle; building it prints its commands, as one
+ *  block, and gives it the current time.  With one worker, the targets
+ *  are built on the calling thread in the order a depth-first
+ *  traversal finishes them, which is how the sequential make builds.
+ *  With more, a target is handed to a worker from a pool as soon as
+ *  all of its prerequisites have been built, so independent parts of
+ *  the graph are built at the same time.  The commands of a target
+ *  always come after those of its prerequisites.  If ordered, the
+ *  blocks come out in exactly the order the sequential make prints
+ *  them, whatever order they are built in.
+ *  @author Felix Liu
+ */
+final class BuildScheduler {
+
+    /** A scheduler for targets with the commands in COMMANDS and the
+     *  times in TIMES, which it updates as it builds, when the current
+     *  time is NOW.  It uses THREADS workers, and prints in the
+     *  sequential order iff ORDERED. */
+    BuildScheduler(HashMap<String, ArrayList<String>> commands,
+                   HashMap<String, Double> times, double now, int threads,
+                   boolean ordered) {
+        _commands = commands;
+        _times = times;
+        _now = now;
+        _threads = Math.max(1, threads);
+        _ordered = ordered;
+    }
+
+    /** Builds TARGETS, in turn, and all they depend on in G.  As in the
+     *  sequential make, the targets built for TARGETS.get(k) get the
+     *  current time plus k.  Exits on a prerequisite with no time. */
+    void build(Graph<String, String> G,
+               List<Graph<String, String>.Vertex> targets) {
+        plan(G, targets);
+        int n = _order.size();
+        if (_threads == 1) {
+            for (int i = 0; i < n; i += 1) {
+                settle(i);
+                finish(i);
+            }
+        } else {
+            ForkJoinPool pool = new ForkJoinPool(_threads);
+            _pool = pool;
+            ArrayList<Integer> ready = new ArrayList<Integer>();
+            for (int i = 0; i < n; i += 1) {
+                if (_pending.get(i) == 0) {
+                    ready.add(i);
+                }
+            }
+            for (int i : ready) {
+                submit(i);
+            }
+            awaitAll();
+            pool.shutdown();
+        }
+        ArrayList<String> names = new ArrayList<String>(n);
+        for (int i = 0; i < n; i += 1) {
+            if (!Double.isNaN(_time[i])) {
+                _times.put(_order.get(i).getLabel(), _time[i]);
+            }
+            names.add(_order.get(i).getLabel());
+        }
+        if (_database != null) {
+            _database.record(names, _commands, _parents, _times);
+        }
+    }
+
+    /** Numbers the vertices TARGETS depend on in G in the order the
+     *  sequential make finishes them, leaving out those that my
+     *  database shows need no building, and records the prerequisites
+     *  and dependents of each. */
+    private void plan(final Graph<String, String> G,
+                      List<Graph<String, String>.Vertex> targets) {
+        final int[] round = new int[1];
+        final ArrayList<Integer> rounds = new ArrayList<Integer>();
+        _order = new ArrayList<Graph<String, String>.Vertex>();
+        _clean = new HashSet<Graph<String, String>.Vertex>();
+        Traversal<String, String> collect = new Traversal<String, String>() {
+            @Override
+            protected void postVisit(Graph<String, String>.Vertex v) {
+                if (clean(G, v)) {
+                    _clean.add(v);
+                } else {
+                    _order.add(v);
+                    rounds.add(round[0]);
+                }
+            }
+        };
+        for (Graph<String, String>.Vertex target : targets) {
+            if (round[0] == 0) {
+                collect.depthFirstTraverse(G, target);
+            } else {
+                collect.continueTraversing(target);
+            }
+            round[0] += 1;
+        }
+        int n = _order.size();
+        HashMap<Graph<String, String>.Vertex, Integer> ids
+            = new HashMap<Graph<String, String>.Vertex, Integer>();
+        for (int i = 0; i < n; i += 1) {
+            ids.put(_order.get(i), i);
+        }
+        _round = new int[n];
+        _time = new double[n];
+        _inputs = new int[n][];
+        _fixed = new double[n][];
+        _dependents = new int[n][];
+        _pending = new AtomicIntegerArray(n);
+        _output = new ArrayList<List<String>>();
+        _failed = new boolean[n];
+        _done = new boolean[n];
+        for (int i = 0; i < n; i += 1) {
+            Graph<String, String>.Vertex v = _order.get(i);
+            _round[i] = rounds.get(i);
+            Double t = _times.get(v.getLabel());
+            _time[i] = t == null ? Double.NaN : t;
+            inputs(i, G.outEdges(v), v, ids);
+            _dependents[i]
+                = _threads == 1 ? NO_ENDS : ends(G.inEdges(v), v, ids);
+            _output.add(null);
+        }
+    }
+
+    /** Returns the numbers in IDS of the other ends from V of EDGES,
+     *  leaving out any that IDS does not number. */
+    private static int[] ends(Iterable<Graph<String, String>.Edge> edges,
+                              Graph<String, String>.Vertex v,
+                              HashMap<Graph<String, String>.Vertex,
+                                      Integer> ids) {
+        ArrayList<Integer> result = new ArrayList<Integer>();
+        for (Graph<String, String>.Edge e : edges) {
+            Integer id = ids.get(e.getV(v));
+            if (id != null) {
+                result.add(id);
+            }
+        }
+        int[] ends = new int[result.size()];
+        for (int k = 0; k < ends.length; k += 1) {
+            ends[k] = result.get(k);
+        }
+        return ends;
+    }
+
+    /** Records, as _inputs[I] and _fixed[I], the other ends from V,
+     *  vertex I, of EDGES, in order, and counts in _pending those that
+     *  IDS numbers.  Those it does not are not built, and _fixed holds
+     *  their times, NaN for those with none. */
+    private void inputs(int i, Iterable<Graph<String, String>.Edge> edges,
+                        Graph<String, String>.Vertex v,
+                        HashMap<Graph<String, String>.Vertex,
+                                Integer> ids) {
+        ArrayList<Integer> inputs = new ArrayList<Integer>();
+        ArrayList<Double> fixed = new ArrayList<Double>();
+        int pending = 0;
+        for (Graph<String, String>.Edge e : edges) {
+            Graph<String, String>.Vertex w = e.getV(v);
+            Integer id = ids.get(w);
+            if (id != null) {
+                inputs.add(id);
+                pending += 1;
+            } else {
+                Double t = _times.get(w.getLabel());
+                fixed.add(t == null ? Double.NaN : t);
+                inputs.add(-fixed.size());
+            }
+        }
+        _inputs[i] = new int[inputs.size()];
+        for (int k = 0; k < _inputs[i].length; k += 1) {
+            _inputs[i][k] = inputs.get(k);
+        }
+        _fixed[i] = new double[fixed.size()];
+        for (int k = 0; k < _fixed[i].length; k += 1) {
+            _fixed[i][k] = fixed.get(k);
+        }
+        _pending.set(i, pending);
+    }
+
+    /** Makes me consult DATABASE, with PARENTS giving the prerequisites
+     *  of each target, to leave out the targets that need no building,
+     *  taking their times as they are, and record in it the targets I
+     *  decide. */
+    void consult(BuildDatabase database,
+                 HashMap<String, ArrayList<String>> parents) {
+        _database = database;
+        _parents = parents;
+    }
+
+    /** Returns true iff V, a vertex of G all of whose prerequisites
+     *  have been planned, needs no building: my database shows that V
+     *  is current, and every prerequisite of V was left out. */
+    private boolean clean(Graph<String, String> G,
+                          Graph<String, String>.Vertex v) {
+        if (_database == null) {
+            return false;
+        }
+        for (Graph<String, String>.Edge e : G.outEdges(v)) {
+            if (!_clean.contains(e.getV(v))) {
+                return false;
+            }
+        }
+        return _database.current(v.getLabel(), _commands, _parents,
+                                 _times);
+    }
+
+    /** Builds vertex I on a worker. */
+    private void submit(final int i) {
+        _pool.execute(new Runnable() {
+            @Override
+            public void run() {
+                settle(i);
+                finish(i);
+            }
+        });
+    }
+
+    /** Waits until every vertex has been built. */
+    private synchronized void awaitAll() {
+        boolean interrupted = false;
+        while (_finished < _done.length) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Decides whether vertex I is out of date, all its prerequisites
+     *  having been built, and if so rebuilds it.  It is out of date if
+     *  it has no time, or if one of its prerequisites is newer than it,
+     *  looking at them in order up to the first that has no time.  If
+     *  there is such a prerequisite, and vertex I has a time, make
+     *  stops after I. */
+    private void settle(int i) {
+        double own = _time[i];
+        boolean rebuild = Double.isNaN(own);
+        if (!rebuild) {
+            for (int p : _inputs[i]) {
+                double t = p >= 0 ? _time[p] : _fixed[i][-p - 1];
+                if (Double.isNaN(t)) {
+                    _failed[i] = true;
+                    break;
+                } else if (t > own) {
+                    rebuild = true;
+                }
+            }
+        }
+        if (rebuild) {
+            ArrayList<String> lines
+                = _commands.get(_order.get(i).getLabel());
+            if (lines != null) {
+                _output.set(i, lines);
+                _time[i] = _now + _round[i];
+            }
+        }
+    }
+
+    /** Prints what vertex I produced, as soon as my order allows, and
+     *  hands on any of its dependents that are now ready. */
+    private void finish(int i) {
+        synchronized (this) {
+            _done[i] = true;
+            _finished += 1;
+            if (_finished == _done.length) {
+                notifyAll();
+            }
+            if (_ordered) {
+                while (_printed < _done.length && _done[_printed]) {
+                    print(_printed);
+                    _printed += 1;
+                }
+            } else {
+                print(i);
+            }
+        }
+        if (_failed[i]) {
+            return;
+        }
+        for (int d : _dependents[i]) {
+            if (_pending.decrementAndGet(d) == 0 && _pool != null) {
+                submit(d);
+            }
+        }
+    }
+
+    /** Prints the commands of vertex I, and exits if it could not be
+     *  decided. */
+    private void print(int i) {
+        List<String> lines = _output.get(i);
+        if (lines != null) {
+            for (String line : lines) {
+                System.out.println(line);
+            }
+        }
+        if (_failed[i]) {
+            System.out.flush();
+            System.err.println("issues");
+            System.exit(1);
+        }
+    }
+
+    /** The dependents of each vertex when there is only one worker,
+     *  which needs none. */
+    private static final int[] NO_ENDS = new int[0];
+
+    /** The commands of each target. */
+    private final HashMap<String, ArrayList<String>> _commands;
+    /** The time of each file. */
+    private final HashMap<String, Double> _times;
+    /** The current time. */
+    private final double _now;
+    /** Number of workers. */
+    private final int _threads;
+    /** True iff commands are printed in the sequential order. */
+    private final boolean _ordered;
+    /** The workers, or null if I build on the calling thread. */
+    private ForkJoinPool _pool;
+    /** The build database I consult, or null. */
+    private BuildDatabase _database;
+    /** The prerequisites of each target, for _database. */
+    private HashMap<String, ArrayList<String>> _parents;
+    /** Vertices I leave out. */
+    private HashSet<Graph<String, String>.Vertex> _clean;
+
+    /** The vertices to build, numbered in the order the sequential
+     *  make finishes them, which puts prerequisites first. */
+    private ArrayList<Graph<String, String>.Vertex> _order;
+    /** The index of the target each vertex is built for. */
+    private int[] _round;
+    /** The time of each vertex, NaN if it has none.  A worker writes
+     *  only the entry of the vertex it builds. */
+    private double[] _time;
+    /** The prerequisites of each vertex, in order: the number of each
+     *  that I build, and -K for the one whose time is _fixed[.][K-1]. */
+    private int[][] _inputs;
+    /** The times of the prerequisites of each vertex that I leave
+     *  out. */
+    private double[][] _fixed;
+    /** The vertices that have each vertex as a prerequisite. */
+    private int[][] _dependents;
+    /** The number of prerequisites of each vertex not yet built. */
+    private AtomicIntegerArray _pending;
+    /** The commands each vertex printed, or null. */
+    private ArrayList<List<String>> _output;
+    /** Whether each vertex had a prerequisite with no time. */
+    private boolean[] _failed;
+    /** Whether each vertex has been built; guarded by this. */
+    private boolean[] _done;
+    /** The number of vertices built; guarded by this. */
+    private int _finished;
+    /** The number of vertices printed in order; guarded by this. */
+    private int _printed;
+
+}
@@ -2,11 +2,15 @@ package make;
 
 import graph.DirectedGraph;
 import graph.Graph;
+import graph.Graphs;
 import java.util.Scanner;
 import java.util.ArrayList;
 import java.util.List;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
 
 
@@ -17,7 +21,14 @@ public final class Main {
 
     /** Entry point for the CS61B make program.  ARGS may contain options
      *  and targets:
-     *      [ -f MAKEFILE ] [ -D FILEINFO ] TARGET1 TARGET2 ...
+     *      [ -f MAKEFILE ] [ -D FILEINFO ] [ -j N ] [ -O ] [ -b DATABASE ]
+     *      TARGET1 ...
+     *  With -j, targets are built by N workers at once (see
+     *  BuildScheduler), and -O makes them print their commands in the
+     *  order a sequential make would.  With -b, make remembers the
+     *  state of the targets it decides in DATABASE from one run to the
+     *  next, and passes over those that cannot need building (see
+     *  BuildDatabase).
      */
     public static void main(String... args) {
         String makefileName;
@@ -46,6 +57,29 @@ public final class Main {
                 } else {
                     fileInfoName = args[a];
                 }
+            } else if (args[a].equals("-j")) {
+                a += 1;
+                if (a == args.length) {
+                    usage();
+                } else {
+                    try {
+                        jobs = Integer.parseInt(args[a]);
+                    } catch (NumberFormatException e) {
+                        usage();
+                    }
+                    if (jobs < 1) {
+                        usage();
+                    }
+                }
+            } else if (args[a].equals("-b")) {
+                a += 1;
+                if (a == args.length) {
+                    usage();
+                } else {
+                    databaseName = args[a];
+                }
+            } else if (args[a].equals("-O")) {
+                ordered = true;
             } else if (args[a].startsWith("-")) {
                 usage();
             } else {
@@ -67,8 +101,14 @@ public final class Main {
         System.exit(1);
     }
 
-    /** String that holds the key of two HashMaps. */
-    private static String key = "";
+    /** Number of workers to build with, or 0 to build sequentially. */
+    private static int jobs = 0;
+
+    /** True iff a parallel build prints in the sequential order. */
+    private static boolean ordered = false;
+
+    /** The build database file, or null if there is none. */
+    private static String databaseName = null;
 
     /** Double that takes in the current time. */
     private static double currTime = 0.0;
@@ -77,13 +117,6 @@ public final class Main {
     private static HashMap<String, Double> timings
         = new HashMap<String, Double>();
 
-    /** ArrayList which holds the command lines. */
-    private static ArrayList<String> commandLines
-        = new ArrayList<String>();
-
-    /** ArrayList which holds the keys. */
-    private static ArrayList<String> hmm = new ArrayList<String>();
-
     /** HashMap that relates the target to its parents. */
     private static HashMap<String, ArrayList<String>> parents
         = new HashMap<String, ArrayList<String>>();
@@ -101,8 +134,19 @@ public final class Main {
     private static HashMap<String, Graph<String, String>.Vertex> storage
         = new HashMap<String, Graph<String, String>.Vertex>();
 
-    /** Vertex that can be plugged back in for depth-first traversal. */
-    private static Graph<String, String>.Vertex traversalIn;
+    /** Forgets everything read from the makefile and the file
+     *  information, so that make may be run again in the same program. */
+    static void reset() {
+        currTime = 0.0;
+        timings = new HashMap<String, Double>();
+        parents = new HashMap<String, ArrayList<String>>();
+        commands = new HashMap<String, ArrayList<String>>();
+        g = new DirectedGraph<String, String>();
+        storage = new HashMap<String, Graph<String, String>.Vertex>();
+        jobs = 0;
+        ordered = false;
+        databaseName = null;
+    }
 
     /** Carry out the make procedure using MAKEFILENAME as the makefile,
      *  taking information on the current file-system state from FILEINFONAME,
@@ -113,58 +157,48 @@ public final class Main {
                              List<String> targets) {
         makeRecord(makefileName);
         timeRecord(fileInfoName);
-        makeWhole();
-        MakeTraversals<String, String> traverse
-            = new MakeTraversals<String, String>(commands, timings, currTime,
-                parents);
+        ArrayList<Graph<String, String>.Vertex> vertices
+            = new ArrayList<Graph<String, String>.Vertex>();
         for (String s : targets) {
-            circularcatch(s);
-            traverse.depthFirstTraverse(g, storage.get(s));
-            traverse.clearMem();
-            traverse.incrementTime();
+            if (!storage.containsKey(s)) {
+                System.err.println("no rule for " + s);
+                System.exit(1);
+            }
+            vertices.add(storage.get(s));
         }
-    }
-
-    /** Checks for circular dependencies. Takes in the string S. */
-    static void circularcatch(String s) {
-        traversalIn = storage.get(s);
-        hierarchy(traversalIn);
-    }
-
-    /** Recursive builder. Takes in the vertex IN. */
-    static void hierarchy(Graph<String, String>.Vertex in) {
-        if (parents.containsKey(in.getLabel())) {
-            ArrayList<String> con = parents.get(in.getLabel());
-            for (String items : con) {
-                if (storage.containsKey(items)) {
-                    if (traversalIn.equals(storage.get(items))) {
-                        System.err.println("circular catch");
-                        System.exit(1);
-                    } else {
-                        hierarchy(storage.get(items));
-                    }
-                }
+        circularcatch(vertices);
+        BuildScheduler scheduler
+            = new BuildScheduler(commands, timings, currTime, jobs, ordered);
+        BuildDatabase database = null;
+        if (databaseName != null) {
+            database = BuildDatabase.read(new File(databaseName));
+            scheduler.consult(database, parents);
+        }
+        scheduler.build(g, vertices);
+        if (database != null && database.changed()) {
+            try {
+                database.write(new File(databaseName));
+            } catch (IOException e) {
+                System.err.println("cannot write " + databaseName);
+                System.exit(1);
             }
         }
     }
 
-    /** Graph Making function that sets up the graph. */
-    static void makeWhole() {
-        for (String s : hmm) {
-            if (!storage.containsKey(s)) {
-                storage.put(s, g.add(s));
-            }
-            if (parents.containsKey(s)) {
-                for (String items : parents.get(s)) {
-                    if (!storage.containsKey(items)) {
-                        Graph<String, String>.Vertex input = g.add(items);
-                        g.add(storage.get(s), input);
-                        storage.put(items, input);
-                    } else {
-                        g.add(storage.get(s), storage.get(items));
-                    }
-                }
+    /** Checks, once, for circular dependencies among everything TARGETS
+     *  depend on, and exits with the first cycle found if there is
+     *  one. */
+    static void circularcatch(List<Graph<String, String>.Vertex> targets) {
+        List<Graph<String, String>.Vertex> cycle
+            = Graphs.findCycle(g, targets);
+        if (cycle != null) {
+            StringBuilder path = new StringBuilder();
+            for (Graph<String, String>.Vertex v : cycle) {
+                path.append(v.getLabel()).append(" -> ");
             }
+            path.append(cycle.get(0).getLabel());
+            System.err.println("circular catch: " + path);
+            System.exit(1);
         }
     }
 
@@ -208,96 +242,14 @@ public final class Main {
         }
     }
 
-    /** Processes the Make File to structure the
-     *  data types. Takes in the string FILEINPUT. */
+    /** Processes the Make File to structure the data types, and sets
+     *  up the graph, with a MakefileParser.  Takes in the string
+     *  FILEINPUT. */
     static void makeRecord(String fileInput) {
-        File file = new File(fileInput);
-        try {
-            Scanner sc = new Scanner(file);
-            int count = 0;
-            while (sc.hasNextLine()) {
-                String input = sc.nextLine();
-                if (input.contains(":")) {
-                    sendtoHash(count);
-                    parentLine(input);
-                } else {
-                    commandLine(input);
-                }
-                count++;
-            }
-            sendtoHash(count);
-            sc.close();
-        } catch (FileNotFoundException e) {
+        try (InputStream in = new FileInputStream(fileInput)) {
+            new MakefileParser(in).load(g, storage, parents, commands);
+        } catch (IOException e) {
             e.printStackTrace();
         }
     }
-
-    /** Checks if the input or things before the
-     *  colon is a valid input. Takes in the string INPUT. */
-    static void validTarget(String input) {
-        String beforeTrim = input.trim();
-        if (beforeTrim.charAt(0) != '#') {
-            String[] temp = beforeTrim.split("\\s+");
-            if (temp.length != 1) {
-                System.err.print("invalid target");
-                System.exit(1);
-            }
-        }
-    }
-
-    /** Helps to process the command lines. Takes in the string
-     *  INPUT. */
-    static void commandLine(String input) {
-        if (input.length() != 0) {
-            input = input.replaceAll("\t", "    ");
-            commandLines.add(input);
-        }
-    }
-
-    /** Helps to process overhead. Takes in the integer COUNT. */
-    static void sendtoHash(int count) {
-        if (!key.equals("")) {
-            ArrayList<String> temp
-                = new ArrayList<String>(commandLines);
-            if (commands.containsKey(key)) {
-                System.err.println("two commands for one target");
-                System.exit(1);
-            }
-            if (temp.size() != 0) {
-                commands.put(key, temp);
-                commandLines.clear();
-            }
-        } else if (count != 0) {
-            System.err.println("key error");
-            System.exit(1);
-        }
-    }
-
-    /** Helps to process the parent line. Takes in the string INPUT. */
-    static void parentLine(String input) {
-        String[] temp = input.split(":");
-        validTarget(temp[0]);
-        String firstPart = temp[0];
-        key = firstPart;
-        try {
-            String beforeTrim = temp[1].trim();
-            String[] temp1 = beforeTrim.split("\\s+");
-            ArrayList<String> theReal = new ArrayList<String>();
-            for (String item : temp1) {
-                theReal.add(item);
-            }
-            if (parents.containsKey(key)) {
-                ArrayList<String> append = parents.get(key);
-                for (String item : theReal) {
-                    append.add(item);
-                }
-                parents.put(key, append);
-            } else {
-                parents.put(key, theReal);
-                hmm.add(key);
-            }
-        } catch (ArrayIndexOutOfBoundsException e) {
-            hmm.add(key);
-        }
-    }
 }
@@ -2,59 +2,153 @@ package make;
 
 import org.junit.Test;
 import static org.junit.Assert.*;
-import java.lang.reflect.Field;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import graph.DirectedGraph;
+import graph.Graph;
 
 public class MainTest {
 
-    /** private field that holds the test case. */
-    private Object value;
-
-    /** builds the fields. Takes in the string INPUT */
-    void fieldSetup(String input, Object input1) {
-        try {
-            Field field = Main.class.getDeclaredField(input);
-            field.setAccessible(true);
-            value = field.get(input1);
-        } catch (IllegalAccessException|NoSuchFieldException e) {
-            System.err.println("error");
-            System.exit(1);
+    /** Checks that MakefileParser reads rules and commands across line
+     *  terminators and short reads, as a Scanner would find them, and
+     *  builds the graph with its edges in order. */
+    @Test
+    public void parserTest() throws IOException {
+        StringBuilder longName = new StringBuilder("Q");
+        for (int i = 0; i < 100000; i += 1) {
+            longName.append('q');
         }
-    }
+        String makefile = "all: a " + longName + "\r\n\techo\tall\r"
+            + "a: b\n" + longName + ":\n\na:: c d\n# x y: b\n"
+            + "a:\n  cc a\nb: \r# x y: a";
+        final ByteArrayInputStream bytes
+            = new ByteArrayInputStream(makefile.getBytes("UTF-8"));
+        InputStream trickle = new InputStream() {
+            @Override
+            public int read() {
+                return bytes.read();
+            }
 
-    /** See if getting from record file actually
-     *  throws an error. */
-    @Test
-    public void validTargetInput() {
-        Main.validTarget("#thecat");
-        Main.validTarget("cat");
-        Main.validTarget("cat    ");
+            @Override
+            public int read(byte[] b, int off, int len) {
+                return bytes.read(b, off, Math.min(len, 3));
+            }
+        };
+        DirectedGraph<String, String> g = new DirectedGraph<String, String>();
+        HashMap<String, Graph<String, String>.Vertex> vertices
+            = new HashMap<String, Graph<String, String>.Vertex>();
+        HashMap<String, ArrayList<String>> parents
+            = new HashMap<String, ArrayList<String>>();
+        HashMap<String, ArrayList<String>> commands
+            = new HashMap<String, ArrayList<String>>();
+        new MakefileParser(trickle).load(g, vertices, parents, commands);
+
+        assertEquals(Arrays.asList("a", longName.toString()),
+                     parents.get("all"));
+        assertEquals(Arrays.asList("b", ""), parents.get("a"));
+        assertEquals(Arrays.asList("b", "a"), parents.get("# x y"));
+        assertEquals(Arrays.asList(""), parents.get("b"));
+        assertFalse(parents.containsKey(longName.toString()));
+        assertEquals(Arrays.asList("    echo    all"), commands.get("all"));
+        assertEquals(Arrays.asList("  cc a"), commands.get("a"));
+        assertEquals(2, commands.size());
+        assertSame(parents.get("all").get(0), parents.get("# x y").get(1));
+        assertEquals(6, g.vertexSize());
+        assertEquals("[a, " + longName + "]", heads(g, vertices, "all"));
+        assertEquals("[b, , b, ]", heads(g, vertices, "a"));
+        assertEquals("[b, a]", heads(g, vertices, "# x y"));
+        assertEquals("[]", heads(g, vertices, longName.toString()));
     }
 
-    /** See if the command line is printing
-     *  right. */
-    @Test
-    public void commandLineTest() {
-        Main.commandLine("i don't know if"
-                        + "this works.");
+    /** Returns the labels at the heads of the edges leaving the vertex
+     *  labeled NAME in G, whose vertices are recorded in VERTICES. */
+    private String heads(Graph<String, String> g,
+                         HashMap<String, Graph<String, String>.Vertex>
+                         vertices, String name) {
+        ArrayList<String> result = new ArrayList<String>();
+        for (Graph<String, String>.Edge e : g.outEdges(vertices.get(name))) {
+            result.add(e.getV1().getLabel());
+        }
+        return result.toString();
     }
 
-    /** See if the parent line is printing
-     * right. */
+    /** A build database finds the targets that are as it recorded them,
+     *  survives being written and read back, and notices when recording
+     *  changes it. */
     @Test
-    public void parentLineTest() {
-        Main.parentLine("the: aefj tewf");
-        Main.parentLine("awoeijj");
-        try {
-            Main.parentLine("");
-        } catch (StringIndexOutOfBoundsException e) {
-            assertTrue(true);
+    public void buildDatabase() throws IOException {
+        DirectedGraph<String, String> g = new DirectedGraph<String, String>();
+        HashMap<String, Graph<String, String>.Vertex> v
+            = new HashMap<String, Graph<String, String>.Vertex>();
+        HashMap<String, ArrayList<String>> commands
+            = new HashMap<String, ArrayList<String>>();
+        HashMap<String, ArrayList<String>> parents
+            = new HashMap<String, ArrayList<String>>();
+        HashMap<String, Double> times = new HashMap<String, Double>();
+        String[][] rules = { { "all", "a", "b" }, { "a", "a.c" },
+                             { "b", "b.c" }, { "a.c" }, { "b.c" } };
+        for (String[] rule : rules) {
+            v.put(rule[0], g.add(rule[0]));
+            times.put(rule[0], 10.0);
         }
+        for (String[] rule : rules) {
+            ArrayList<String> deps = new ArrayList<String>();
+            for (int k = 1; k < rule.length; k += 1) {
+                deps.add(rule[k]);
+                g.add(v.get(rule[0]), v.get(rule[k]));
+            }
+            if (!deps.isEmpty()) {
+                parents.put(rule[0], deps);
+                commands.put(rule[0], new ArrayList<String>(
+                    Arrays.asList("make " + rule[0])));
+            }
+        }
+        List<String> names = Arrays.asList("all", "a", "b", "a.c", "b.c");
+        BuildDatabase db = new BuildDatabase();
+        assertEquals(0, current(db, names, commands, parents, times));
+        db.record(names, commands, parents, times);
+        assertEquals(5, current(db, names, commands, parents, times));
+
+        File file = File.createTempFile("make", ".db");
+        file.deleteOnExit();
+        db.write(file);
+        db = BuildDatabase.read(file);
+        assertEquals(5, db.size());
+        assertFalse(db.changed());
+        db.record(Arrays.asList("all", "a"), commands, parents, times);
+        assertFalse(db.changed());
+
+        times.put("b.c", 11.0);
+        assertFalse(db.current("b.c", commands, parents, times));
+        assertTrue(db.current("b", commands, parents, times));
+        times.put("b.c", 10.0);
+        commands.get("a").set(0, "make a again");
+        assertEquals(4, current(db, names, commands, parents, times));
+        times.put("b", 9.0);
+        db.record(Arrays.asList("b"), commands, parents, times);
+        assertTrue(db.changed());
+        assertEquals(3, current(db, names, commands, parents, times));
+        assertFalse(db.current("b", commands, parents, times));
     }
 
-    /** See if make whole does anything and processes
-     *  a graph correctly. */
-    @Test
-    public void makeWholeTest() {
-        Main.makeWhole();
+    /** Returns how many of the targets NAMES DB finds current, given
+     *  COMMANDS, PARENTS and TIMES. */
+    private int current(BuildDatabase db, List<String> names,
+                        HashMap<String, ArrayList<String>> commands,
+                        HashMap<String, ArrayList<String>> parents,
+                        HashMap<String, Double> times) {
+        int count = 0;
+        for (String name : names) {
+            if (db.current(name, commands, parents, times)) {
+                count += 1;
+            }
+        }
+        return count;
     }
 }
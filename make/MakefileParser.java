@@ -0,0 +1,437 @@
+package make;
+
+import graph.Graph;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/** Reads a makefile in one pass and builds the graph of its targets
+ *  and prerequisites directly from what it read.  Lines are found,
+ *  trimmed and split in place in my buffer, and each name is interned
+ *  as it is read, so that a target has one String however many times
+ *  it appears, and the only other objects made per line are command
+ *  lines.  A line ends at any terminator Scanner.nextLine accepts.
+ *  A line with a colon in it is a rule.  Its target is the text before
+ *  the first colon, untrimmed, which must be one word unless it starts
+ *  with '#'; otherwise, or if it is empty, the makefile has an
+ *  "invalid target".  Its prerequisites are the words between the
+ *  first colon and the next, or the empty name if only blanks lie
+ *  there.  Every other nonempty line is a command of the rule above
+ *  it, with each tab replaced by four spaces.  A makefile whose first
+ *  line is not a rule has a "key error", and one with a rule for a
+ *  target that already has commands has "two commands for one
+ *  target".
+ *  @author Felix Liu
+ */
+final class MakefileParser {
+
+    /** A parser reading from IN, which it does not buffer further. */
+    MakefileParser(InputStream in) {
+        _in = new InputStreamReader(in, CHARSET.newDecoder());
+    }
+
+    /** Reads the whole makefile, adding to G a vertex for each target
+     *  and prerequisite, recorded by name in VERTICES, and an edge from
+     *  each target to each of its prerequisites.  Targets are taken in
+     *  the order of their first rules with prerequisites and of their
+     *  rules with nothing but colons after the target, so that one may
+     *  be taken more than once; each time, it gets an edge to each
+     *  prerequisite of all its rules, in order, even one it already has
+     *  an edge to.  Records in PARENTS the prerequisites of each target
+     *  that has a rule listing any, and in COMMANDS the commands of
+     *  each target that has some.  Prints a message and exits on a
+     *  malformed makefile. */
+    void load(Graph<String, String> G,
+              HashMap<String, Graph<String, String>.Vertex> vertices,
+              HashMap<String, ArrayList<String>> parents,
+              HashMap<String, ArrayList<String>> commands)
+        throws IOException {
+        int count = 0;
+        while (nextLine()) {
+            int colon = _lineStart;
+            while (colon < _lineEnd && _buf[colon] != ':') {
+                colon += 1;
+            }
+            if (colon < _lineEnd) {
+                flush(count, commands);
+                rule(colon);
+            } else if (_lineEnd > _lineStart) {
+                _lines.add(command());
+            }
+            count += 1;
+        }
+        flush(count, commands);
+        build(G, vertices, parents);
+    }
+
+    /** Finds the next line, setting _lineStart and _lineEnd around it
+     *  in _buf, without its terminator, which is any that
+     *  Scanner.nextLine accepts.  Returns false at the end of the
+     *  stream. */
+    private boolean nextLine() throws IOException {
+        int p = _pos;
+        while (true) {
+            if (_skipNewline && p < _limit) {
+                _skipNewline = false;
+                if (_buf[p] == '\n') {
+                    p += 1;
+                    _pos = p;
+                }
+            }
+            while (p < _limit && !isTerminator(_buf[p])) {
+                p += 1;
+            }
+            if (p < _limit) {
+                _lineStart = _pos;
+                _lineEnd = p;
+                _skipNewline = _buf[p] == '\r';
+                _pos = p + 1;
+                return true;
+            }
+            int done = p - _pos;
+            if (!fill()) {
+                _lineStart = _pos;
+                _lineEnd = _pos = _limit;
+                return done > 0;
+            }
+            p = _pos + done;
+        }
+    }
+
+    /** Moves the unread part of _buf to its front, growing it if it is
+     *  full, and reads more of the stream after it.  Returns false if
+     *  the stream is exhausted or, as Scanner takes it, is not
+     *  properly encoded from here on. */
+    private boolean fill() throws IOException {
+        int kept = _limit - _pos;
+        if (kept == _buf.length) {
+            _buf = Arrays.copyOf(_buf, 2 * _buf.length);
+        } else if (_pos > 0) {
+            System.arraycopy(_buf, _pos, _buf, 0, kept);
+        }
+        _pos = 0;
+        _limit = kept;
+        int n;
+        try {
+            n = _in.read(_buf, _limit, _buf.length - _limit);
+        } catch (CharacterCodingException e) {
+            return false;
+        }
+        if (n <= 0) {
+            return false;
+        }
+        _limit += n;
+        return true;
+    }
+
+    /** Finishes the rule before the current line, which is line COUNT
+     *  (from 0), recording in COMMANDS the command lines read since. */
+    private void flush(int count,
+                       HashMap<String, ArrayList<String>> commands) {
+        if (_key >= 0) {
+            String key = _names[_key];
+            if (commands.containsKey(key)) {
+                System.err.println("two commands for one target");
+                System.exit(1);
+            }
+            if (!_lines.isEmpty()) {
+                commands.put(key, _lines);
+                _lines = new ArrayList<String>();
+            }
+        } else if (count != 0) {
+            System.err.println("key error");
+            System.exit(1);
+        }
+    }
+
+    /** Reads the current line as a rule whose first colon is at
+     *  COLON.  The target is everything before the colon, and the
+     *  prerequisites are the words between it and the next colon, or
+     *  the empty name if there are none there but something other
+     *  than colons follows. */
+    private void rule(int colon) {
+        int start = trimStart(_lineStart, colon),
+            end = trimEnd(start, colon);
+        if (start == end) {
+            invalidTarget();
+        } else if (_buf[start] != '#') {
+            for (int p = start; p < end; p += 1) {
+                if (isBlank(_buf[p])) {
+                    invalidTarget();
+                }
+            }
+        }
+        _key = intern(_lineStart, colon);
+        int next = colon + 1;
+        while (next < _lineEnd && _buf[next] == ':') {
+            next += 1;
+        }
+        if (next == _lineEnd) {
+            _order = push(_order, _orderSize, _key);
+            _orderSize += 1;
+            return;
+        }
+        next = colon + 1;
+        while (next < _lineEnd && _buf[next] != ':') {
+            next += 1;
+        }
+        if (_deps[_key] == null) {
+            _deps[_key] = new int[2];
+            _order = push(_order, _orderSize, _key);
+            _orderSize += 1;
+        }
+        start = trimStart(colon + 1, next);
+        end = trimEnd(start, next);
+        if (start == end) {
+            depend(_key, intern(start, end));
+        }
+        while (start < end) {
+            int p = start;
+            while (p < end && !isBlank(_buf[p])) {
+                p += 1;
+            }
+            depend(_key, intern(start, p));
+            start = p;
+            while (start < end && isBlank(_buf[start])) {
+                start += 1;
+            }
+        }
+    }
+
+    /** Reports a rule whose target is not one word, and exits. */
+    private static void invalidTarget() {
+        System.err.print("invalid target");
+        System.exit(1);
+    }
+
+    /** Returns the current line as a command, each tab replaced by
+     *  four spaces. */
+    private String command() {
+        int tabs = 0;
+        for (int p = _lineStart; p < _lineEnd; p += 1) {
+            if (_buf[p] == '\t') {
+                tabs += 1;
+            }
+        }
+        int len = _lineEnd - _lineStart;
+        if (tabs == 0) {
+            return new String(_buf, _lineStart, len);
+        }
+        StringBuilder line = new StringBuilder(len + 3 * tabs);
+        for (int p = _lineStart; p < _lineEnd; p += 1) {
+            if (_buf[p] == '\t') {
+                line.append("    ");
+            } else {
+                line.append(_buf[p]);
+            }
+        }
+        return line.toString();
+    }
+
+    /** Makes the name numbered DEP the next prerequisite of the one
+     *  numbered TARGET. */
+    private void depend(int target, int dep) {
+        _deps[target] = push(_deps[target], _depCount[target], dep);
+        _depCount[target] += 1;
+    }
+
+    /** Returns the number of the name in _buf[START .. END-1], giving
+     *  it the next number if it is new. */
+    private int intern(int start, int end) {
+        int h = 0;
+        for (int p = start; p < end; p += 1) {
+            h = 31 * h + _buf[p];
+        }
+        int slot = (h * GOLDEN) >>> (Integer.SIZE - _bits);
+        while (_table[slot] != 0) {
+            int id = _table[slot] - 1;
+            if (_hash[id] == h && matches(_names[id], start, end)) {
+                return id;
+            }
+            slot = (slot + 1) & (_table.length - 1);
+        }
+        int id = _size;
+        if (id == _names.length) {
+            int cap = 2 * id;
+            _names = Arrays.copyOf(_names, cap);
+            _hash = Arrays.copyOf(_hash, cap);
+            _deps = Arrays.copyOf(_deps, cap);
+            _depCount = Arrays.copyOf(_depCount, cap);
+        }
+        _names[id] = new String(_buf, start, end - start);
+        _hash[id] = h;
+        _table[slot] = id + 1;
+        _size += 1;
+        if (2 * _size > _table.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    /** Returns true iff NAME is the text in _buf[START .. END-1]. */
+    private boolean matches(String name, int start, int end) {
+        if (name.length() != end - start) {
+            return false;
+        }
+        for (int k = 0; start < end; k += 1, start += 1) {
+            if (name.charAt(k) != _buf[start]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Doubles the size of _table. */
+    private void rehash() {
+        _bits += 1;
+        _table = new int[1 << _bits];
+        for (int id = 0; id < _size; id += 1) {
+            int slot = (_hash[id] * GOLDEN) >>> (Integer.SIZE - _bits);
+            while (_table[slot] != 0) {
+                slot = (slot + 1) & (_table.length - 1);
+            }
+            _table[slot] = id + 1;
+        }
+    }
+
+    /** Adds to G, and records in VERTICES and PARENTS, the targets and
+     *  prerequisites I have read, as load describes. */
+    private void build(Graph<String, String> G,
+                       HashMap<String, Graph<String, String>.Vertex> vertices,
+                       HashMap<String, ArrayList<String>> parents) {
+        ArrayList<Graph<String, String>.Vertex> made
+            = new ArrayList<Graph<String, String>.Vertex>(_size);
+        for (int id = 0; id < _size; id += 1) {
+            made.add(null);
+        }
+        for (int i = 0; i < _orderSize; i += 1) {
+            int target = _order[i];
+            Graph<String, String>.Vertex v
+                = vertex(target, G, made, vertices);
+            for (int k = 0; k < _depCount[target]; k += 1) {
+                G.add(v, vertex(_deps[target][k], G, made, vertices));
+            }
+        }
+        for (int id = 0; id < _size; id += 1) {
+            if (_deps[id] != null) {
+                ArrayList<String> names
+                    = new ArrayList<String>(_depCount[id]);
+                for (int k = 0; k < _depCount[id]; k += 1) {
+                    names.add(_names[_deps[id][k]]);
+                }
+                parents.put(_names[id], names);
+            }
+        }
+    }
+
+    /** Returns the vertex of G for the name numbered ID, kept in MADE
+     *  and VERTICES, adding it if there is none yet. */
+    private Graph<String, String>.Vertex
+    vertex(int id, Graph<String, String> G,
+           ArrayList<Graph<String, String>.Vertex> made,
+           HashMap<String, Graph<String, String>.Vertex> vertices) {
+        Graph<String, String>.Vertex v = made.get(id);
+        if (v == null) {
+            v = G.add(_names[id]);
+            made.set(id, v);
+            vertices.put(_names[id], v);
+        }
+        return v;
+    }
+
+    /** Returns the first position from START before END in _buf that
+     *  String.trim would keep, or END. */
+    private int trimStart(int start, int end) {
+        while (start < end && _buf[start] <= ' ') {
+            start += 1;
+        }
+        return start;
+    }
+
+    /** Returns the position after the last one from START before END
+     *  in _buf that String.trim would keep, or START. */
+    private int trimEnd(int start, int end) {
+        while (end > start && _buf[end - 1] <= ' ') {
+            end -= 1;
+        }
+        return end;
+    }
+
+    /** Returns LIST, which holds SIZE values, or a copy of it with more
+     *  room, with X as its value number SIZE. */
+    private static int[] push(int[] list, int size, int x) {
+        if (size == list.length) {
+            list = Arrays.copyOf(list, 2 * size);
+        }
+        list[size] = x;
+        return list;
+    }
+
+    /** Returns true iff C is one of the characters \s matches. */
+    private static boolean isBlank(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == 0x0B
+            || c == '\f' || c == '\r';
+    }
+
+    /** Returns true iff C ends a line for Scanner.nextLine. */
+    private static boolean isTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028'
+            || c == '\u2029';
+    }
+
+    /** The encoding of makefiles, as Scanner assumed. */
+    private static final Charset CHARSET = Charset.defaultCharset();
+    /** Multiplier spreading hash codes over _table (2**32 divided by
+     *  the golden ratio). */
+    private static final int GOLDEN = 0x9e3779b9;
+
+    /** Source of the makefile. */
+    private final Reader _in;
+    /** Characters read but not yet consumed lie in
+     *  _buf[_pos .. _limit - 1]. */
+    private char[] _buf = new char[1 << 16];
+    /** Start of unconsumed data in _buf. */
+    private int _pos;
+    /** End of data in _buf. */
+    private int _limit;
+    /** True iff the last line ended in \r, so that a \n next is part of
+     *  its terminator. */
+    private boolean _skipNewline;
+    /** Bounds of the current line in _buf. */
+    private int _lineStart, _lineEnd;
+
+    /** The number of the target of the current rule, or -1 before the
+     *  first. */
+    private int _key = -1;
+    /** The command lines read since the last rule line. */
+    private ArrayList<String> _lines = new ArrayList<String>();
+    /** The names read so far, by number. */
+    private String[] _names = new String[16];
+    /** The hash code of each name. */
+    private int[] _hash = new int[16];
+    /** The prerequisites of each name, by number, or null for a name
+     *  with no rule listing any. */
+    private int[][] _deps = new int[16][];
+    /** The number of prerequisites of each name. */
+    private int[] _depCount = new int[16];
+    /** The number of names. */
+    private int _size;
+    /** Open-addressed hash table holding, for each name, its number
+     *  plus 1; 0 marks an empty slot.  It has 2**_bits slots. */
+    private int[] _table = new int[1 << 5];
+    /** Log2 of the size of _table. */
+    private int _bits = 5;
+    /** The targets of the rules, in the order build takes them: a
+     *  target appears once for its first rule listing prerequisites,
+     *  and once for each rule listing none. */
+    private int[] _order = new int[16];
+    /** The number of entries in _order. */
+    private int _orderSize;
+
+}
@@ -0,0 +1,329 @@
+package trip;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/** A trip map in compiled form.  As a MapSink, I collect the records
+ *  of a text map, checking and converting each road's length as trip
+ *  would, and write out the graph that trip would build from them in a
+ *  binary format: its edges are laid out in compressed-sparse-row form,
+ *  as a CompactGraph keeps them, so that load reads them straight into
+ *  arrays.  The format, all big-endian, is
+ *      MAGIC VERSION #strings #locations #edges
+ *      for each string:    its length in UTF-8 bytes, then the bytes
+ *      names[#locations]  xs[#locations]  ys[#locations]
+ *      offsets[#locations + 1]
+ *      targets[#edges]  weights[#edges]  roads[#edges]  dirs[#edges]
+ *  where the coordinates and weights are doubles and everything else
+ *  is an int.  Location i is named strings[names[i]] and lies at
+ *  (xs[i], ys[i]); the edges leaving it are offsets[i] to
+ *  offsets[i + 1] - 1.  Edge k enters location targets[k] along the
+ *  road strings[roads[k]] of length weights[k], whose direction is
+ *  strings[dirs[k]], or strings[-1 - dirs[k]] if the edge travels
+ *  against it.  Locations keep the order of their records in the text
+ *  map, and the edges leaving each the order in which its R records add
+ *  them, on which the choice among equally short routes depends.  load
+ *  reads the whole file at once and copies each section into an array.
+ *  @author Felix Liu
+ */
+final class BinaryMap implements MapSink {
+
+    /** First int of a compiled map: "TRPM". */
+    static final int MAGIC = 0x5452504d;
+    /** Version of the format I write. */
+    static final int VERSION = 2;
+
+    @Override
+    public void location(String name, double x, double y) {
+        _where.put(name, _locations.size());
+        _locations.add(new double[] { intern(name), x, y });
+    }
+
+    /** Receives the R record for the road NAME, whose length is given by
+     *  the text LENGTH, running in direction DIR from the location named
+     *  FROM to the one named TO.  Exits, as trip does, if LENGTH is not
+     *  a number, and also if FROM or TO names no location yet. */
+    @Override
+    public void road(String name, String from, String length, String dir,
+                     String to) {
+        double value = 0.0;
+        try {
+            value = Double.parseDouble(length);
+        } catch (NumberFormatException e) {
+            System.err.println("bad value for edge");
+            System.exit(1);
+        }
+        _roads.add(new int[] { intern(name), place(from), intern(dir),
+                               place(to) });
+        _lengths.add(value);
+    }
+
+    /** Writes the records I have received to OUT in compiled form. */
+    void write(OutputStream out) throws IOException {
+        int n = _locations.size(), m = 2 * _roads.size();
+        int[] offsets = new int[n + 1];
+        for (int[] road : _roads) {
+            offsets[road[1] + 1] += 1;
+            offsets[road[3] + 1] += 1;
+        }
+        for (int i = 0; i < n; i += 1) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] targets = new int[m], roads = new int[m], dirs = new int[m];
+        double[] weights = new double[m];
+        int[] fill = Arrays.copyOf(offsets, n);
+        for (int r = 0; r < _roads.size(); r += 1) {
+            int[] road = _roads.get(r);
+            int k = fill[road[1]];
+            fill[road[1]] += 1;
+            targets[k] = road[3];
+            weights[k] = _lengths.get(r);
+            roads[k] = road[0];
+            dirs[k] = road[2];
+            k = fill[road[3]];
+            fill[road[3]] += 1;
+            targets[k] = road[1];
+            weights[k] = _lengths.get(r);
+            roads[k] = road[0];
+            dirs[k] = -1 - road[2];
+        }
+
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(_strings.size());
+        data.writeInt(n);
+        data.writeInt(m);
+        for (String s : _strings) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            data.writeInt(bytes.length);
+            data.write(bytes);
+        }
+        for (double[] loc : _locations) {
+            data.writeInt((int) loc[0]);
+        }
+        for (int c = 1; c <= 2; c += 1) {
+            for (double[] loc : _locations) {
+                data.writeDouble(loc[c]);
+            }
+        }
+        for (int offset : offsets) {
+            data.writeInt(offset);
+        }
+        for (int target : targets) {
+            data.writeInt(target);
+        }
+        for (double weight : weights) {
+            data.writeDouble(weight);
+        }
+        for (int road : roads) {
+            data.writeInt(road);
+        }
+        for (int d : dirs) {
+            data.writeInt(d);
+        }
+        data.flush();
+    }
+
+    /** Returns true iff FILE begins as a compiled map does. */
+    static boolean isCompiled(File file) throws IOException {
+        if (file.length() < HEADER) {
+            return false;
+        }
+        DataInputStream in = new DataInputStream(new FileInputStream(file));
+        try {
+            return in.readInt() == MAGIC;
+        } finally {
+            in.close();
+        }
+    }
+
+    /** Returns the compiled map in FILE. */
+    static BinaryMap load(File file) throws IOException {
+        ByteBuffer map = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+        try {
+            if (map.getInt() != MAGIC || map.getInt() != VERSION) {
+                throw new IOException(file + ": not a compiled trip map");
+            }
+            BinaryMap result = new BinaryMap();
+            result._table = new String[map.getInt()];
+            int n = map.getInt(), m = map.getInt();
+            byte[] bytes = new byte[64];
+            for (int i = 0; i < result._table.length; i += 1) {
+                int len = map.getInt();
+                if (len > bytes.length) {
+                    bytes = Arrays.copyOf(bytes, Math.max(len,
+                                                          2 * bytes.length));
+                }
+                map.get(bytes, 0, len);
+                result._table[i]
+                    = new String(bytes, 0, len, StandardCharsets.UTF_8);
+            }
+            result._names = ints(map, n);
+            result._xs = doubles(map, n);
+            result._ys = doubles(map, n);
+            result._offsets = ints(map, n + 1);
+            result._targets = ints(map, m);
+            result._weights = doubles(map, m);
+            result._roadNames = ints(map, m);
+            result._dirs = ints(map, m);
+            if (!result.consistent()) {
+                throw new IOException(file + ": damaged compiled map");
+            }
+            return result;
+        } catch (RuntimeException e) {
+            throw new IOException(file + ": damaged compiled map", e);
+        }
+    }
+
+    /** Returns true iff every index in a loaded map is in range and
+     *  its offsets run in order from the first edge to the last. */
+    private boolean consistent() {
+        int n = _names.length, m = _targets.length;
+        if (_offsets[0] != 0 || _offsets[n] != m) {
+            return false;
+        }
+        for (int i = 0; i < n; i += 1) {
+            if (_offsets[i] > _offsets[i + 1]
+                || !inRange(_names[i], _table.length)) {
+                return false;
+            }
+        }
+        for (int k = 0; k < m; k += 1) {
+            int dir = _dirs[k] < 0 ? -1 - _dirs[k] : _dirs[k];
+            if (!inRange(_targets[k], n)
+                || !inRange(_roadNames[k], _table.length)
+                || !inRange(dir, _table.length)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Returns true iff 0 <= I < N. */
+    private static boolean inRange(int i, int n) {
+        return i >= 0 && i < n;
+    }
+
+    /** Returns the number of locations in a loaded map. */
+    int locations() {
+        return _names.length;
+    }
+
+    /** Returns location I of a loaded map. */
+    Location location(int i) {
+        return new Location(_table[_names[i]], _xs[i], _ys[i]);
+    }
+
+    /** Returns the offsets of the edges leaving each location of a loaded
+     *  map, as CompactGraph's firstOut would. */
+    int[] offsets() {
+        return _offsets;
+    }
+
+    /** Returns the location that each edge of a loaded map enters. */
+    int[] targets() {
+        return _targets;
+    }
+
+    /** Returns the length of each edge of a loaded map. */
+    double[] weights() {
+        return _weights;
+    }
+
+    /** Returns the label of edge K of a loaded map. */
+    Road road(int k) {
+        int dir = _dirs[k];
+        return new Road(_table[_roadNames[k]], _weights[k],
+                        _table[dir < 0 ? -1 - dir : dir], dir < 0);
+    }
+
+    /** Returns the next N ints of MAP. */
+    private static int[] ints(ByteBuffer map, int n) {
+        int[] result = new int[n];
+        map.asIntBuffer().get(result);
+        map.position(map.position() + 4 * n);
+        return result;
+    }
+
+    /** Returns the next N doubles of MAP. */
+    private static double[] doubles(ByteBuffer map, int n) {
+        double[] result = new double[n];
+        map.asDoubleBuffer().get(result);
+        map.position(map.position() + 8 * n);
+        return result;
+    }
+
+    /** Returns the index of S in the string table, adding it if it is
+     *  new. */
+    private int intern(String s) {
+        Integer index = _index.get(s);
+        if (index == null) {
+            index = _strings.size();
+            _index.put(s, index);
+            _strings.add(s);
+        }
+        return index;
+    }
+
+    /** Returns the index of the location that NAME now stands for, which
+     *  is the last one given that name, as in trip.  Exits if there is
+     *  none. */
+    private int place(String name) {
+        Integer index = _where.get(name);
+        if (index == null) {
+            System.err.println("no location " + name);
+            System.exit(1);
+        }
+        return index;
+    }
+
+    /** Size in bytes of the header. */
+    private static final int HEADER = 20;
+
+    /** The distinct strings of the map, in order of first use. */
+    private final ArrayList<String> _strings = new ArrayList<String>();
+    /** Maps each string in _strings to its index. */
+    private final HashMap<String, Integer> _index
+        = new HashMap<String, Integer>();
+    /** Each location's name index and coordinates. */
+    private final ArrayList<double[]> _locations = new ArrayList<double[]>();
+    /** Maps each location name to the index of the last location so
+     *  named. */
+    private final HashMap<String, Integer> _where
+        = new HashMap<String, Integer>();
+    /** Each road's name, from, dir and to indices. */
+    private final ArrayList<int[]> _roads = new ArrayList<int[]>();
+    /** Each road's length. */
+    private final ArrayList<Double> _lengths = new ArrayList<Double>();
+
+    /** The string table of a loaded map. */
+    private String[] _table;
+    /** The name index of each location of a loaded map. */
+    private int[] _names;
+    /** The coordinates of each location of a loaded map. */
+    private double[] _xs, _ys;
+    /** The edges leaving location i of a loaded map are _offsets[i] to
+     *  _offsets[i + 1] - 1. */
+    private int[] _offsets;
+    /** The location each edge of a loaded map enters. */
+    private int[] _targets;
+    /** The length of each edge of a loaded map. */
+    private double[] _weights;
+    /** The road name index of each edge of a loaded map. */
+    private int[] _roadNames;
+    /** The direction index of each edge of a loaded map, or -1 minus it
+     *  if the edge runs against that direction. */
+    private int[] _dirs;
+
+}
@@ -0,0 +1,55 @@
+package trip;
+
+import graph.Weightable;
+
+/** A location on a trip map: the label of a vertex of Main's map,
+ *  made from an L record.  My weight is free for use by searches.
+ *  @author Felix Liu
+ */
+public final class Location implements Weightable {
+
+    /** The location named NAME at (X, Y). */
+    public Location(String name, double x, double y) {
+        _name = name;
+        _x = x;
+        _y = y;
+    }
+
+    /** Returns my name. */
+    public String name() {
+        return _name;
+    }
+
+    /** Returns my x coordinate. */
+    public double x() {
+        return _x;
+    }
+
+    /** Returns my y coordinate. */
+    public double y() {
+        return _y;
+    }
+
+    @Override
+    public double weight() {
+        return _weight;
+    }
+
+    @Override
+    public void setWeight(double w) {
+        _weight = w;
+    }
+
+    @Override
+    public String toString() {
+        return _name;
+    }
+
+    /** My name. */
+    private final String _name;
+    /** My coordinates. */
+    private final double _x, _y;
+    /** My weight. */
+    private double _weight;
+
+}
@@ -4,18 +4,28 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.PrintStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.File;
 import java.util.Scanner;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.math.BigDecimal;
 import graph.Graph;
+import graph.CompactGraph;
+import graph.ContractionHierarchy;
 import graph.Weighting;
-import graph.Weighter;
 import graph.Distancer;
 import graph.DirectedGraph;
 import graph.Graphs;
+import graph.KdTree;
+import graph.Locator;
+import graph.RouteExecutor;
+import graph.SearchContext;
 
 /** Initial class for the 'trip' program.
  *  @author Felix Liu
@@ -24,10 +34,17 @@ public final class Main {
 
     /** Entry point for the CS61B trip program.  ARGS may contain options
      *  and targets:
-     *      [ -m MAP ] [ -o OUT ] [ REQUEST ]
+     *      [ -m MAP ] [ -o OUT ] [ -c ] [ -t THREADS ] [ REQUEST ]
      *  where MAP (default Map) contains the map data, OUT (default standard
      *  output) takes the result, and REQUEST (default standard input) contains
-     *  the locations along the requested trip.
+     *  the locations along the requested trip.  With -c, the map is first
+     *  preprocessed into a contraction hierarchy, which takes a while but
+     *  makes each trip much faster to plan.  With -t, the legs of all the
+     *  requested trips are planned ahead of time as one batch on THREADS
+     *  worker threads.  MAP may also be a map compiled by
+     *  trip.MapCompiler, which loads much faster.  A location in
+     *  REQUEST may be given as @X,Y (with no blanks), which stands for
+     *  the location in the map nearest (X, Y).
      */
     public static void main(String... args) {
         String mapFileName;
@@ -53,6 +70,15 @@ public final class Main {
                 } else {
                     outFileName = args[a];
                 }
+            } else if (args[a].equals("-c")) {
+                contract = true;
+            } else if (args[a].equals("-t")) {
+                a += 1;
+                if (a == args.length || !args[a].matches("[1-9][0-9]*")) {
+                    usage();
+                } else {
+                    threads = Integer.parseInt(args[a]);
+                }
             } else if (args[a].startsWith("-")) {
                 usage();
             } else {
@@ -111,24 +137,22 @@ public final class Main {
     private static void trip(String mapFileName) {
         File file = new File(mapFileName);
         try {
-            Scanner sc = new Scanner(file);
-            while (sc.hasNextLine()) {
-                String i = sc.nextLine();
-                if (i.equals("")) {
-                    continue;
-                } else {
-                    char c = i.charAt(0);
-                    if (c == 'L') {
-                        processVert(i);
-                    } else if (c == 'R') {
-                        processEdge(i);
-                    } else {
-                        System.out.println("not a valid entry");
-                        System.exit(0);
-                    }
+            if (BinaryMap.isCompiled(file)) {
+                addMap(BinaryMap.load(file));
+            } else {
+                InputStream in = new FileInputStream(file);
+                try {
+                    new MapLoader(in).load();
+                } finally {
+                    in.close();
                 }
+                compact = new CompactGraph<Location, Road>(world, EDGE);
+            }
+            snapRequests();
+            if (contract) {
+                hierarchy = new ContractionHierarchy<Location, Road>(compact);
             }
-            sc.close();
+            plan();
             for (String items : directions) {
                 String[] input = items.split("\\,*\\s+");
                 printHeader(input[0]);
@@ -140,20 +164,142 @@ public final class Main {
                 count = 1;
             }
 
-        } catch (FileNotFoundException e) {
+        } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
+    /** Replaces each location given by coordinates in the requests in
+     *  directions with the name of the location nearest it. */
+    static void snapRequests() {
+        for (int i = 0; i < directions.size(); i += 1) {
+            String items = directions.get(i);
+            if (items.indexOf('@') >= 0) {
+                String[] input = items.split("\\,*\\s+");
+                for (int k = 0; k < input.length; k += 1) {
+                    input[k] = snap(input[k]);
+                }
+                directions.set(i, String.join(", ", input));
+            }
+        }
+    }
+
+    /** Returns the name of the location that TOKEN of a request stands
+     *  for.  If TOKEN has the form @X,Y and is not itself the name of a
+     *  location, that is the location nearest (X, Y); otherwise, it is
+     *  TOKEN. */
+    static String snap(String token) {
+        int comma = token.indexOf(',');
+        if (!token.startsWith("@") || comma < 0
+            || concreteV.containsKey(token)) {
+            return token;
+        }
+        try {
+            double x = Double.parseDouble(token.substring(1, comma));
+            double y = Double.parseDouble(token.substring(comma + 1));
+            Location nearest = places().nearest(x, y);
+            return nearest == null ? token : nearest.name();
+        } catch (NumberFormatException e) {
+            return token;
+        }
+    }
+
+    /** Returns a spatial index of the locations in the map that can be
+     *  named in a request, building it if the map has changed. */
+    static KdTree<Location> places() {
+        if (places == null) {
+            ArrayList<Location> named = new ArrayList<Location>();
+            for (Graph<Location, Road>.Vertex v : world.vertices()) {
+                if (concreteV.get(v.getLabel().name()) == v) {
+                    named.add(v.getLabel());
+                }
+            }
+            places = new KdTree<Location>(named, POSITION);
+        }
+        return places;
+    }
+
+    /** Plans every distinct leg of every request in directions ahead
+     *  of printing, and saves the results in routes.  With more than one
+     *  thread, the legs go to a RouteExecutor as one batch.  A leg that
+     *  appears in several requests, or several times in one, is planned
+     *  only once, unless routes evicts it before it is printed. */
+    static void plan() {
+        LinkedHashMap<String, String[]> legs
+            = new LinkedHashMap<String, String[]>();
+        for (String items : directions) {
+            String[] input = items.split("\\,*\\s+");
+            for (int i = 0; i < input.length - 1; i += 1) {
+                String key = legKey(input[i], input[i + 1]);
+                if (!routes.containsKey(key) && !legs.containsKey(key)) {
+                    legs.put(key, new String[] { input[i], input[i + 1] });
+                }
+            }
+        }
+        if (threads <= 1 || legs.size() <= 1) {
+            for (Map.Entry<String, String[]> leg : legs.entrySet()) {
+                String[] ends = leg.getValue();
+                routes.put(leg.getKey(), route(ends[0], ends[1]));
+            }
+            return;
+        }
+        int[] from = new int[legs.size()], to = new int[legs.size()];
+        int i = 0;
+        for (String[] ends : legs.values()) {
+            from[i] = compact.id(concreteV.get(ends[0]));
+            to[i] = compact.id(concreteV.get(ends[1]));
+            i += 1;
+        }
+        RouteExecutor<Location, Road> executor = hierarchy != null
+            ? new RouteExecutor<Location, Road>(hierarchy, threads)
+            : new RouteExecutor<Location, Road>(compact, CROWFLYER, threads);
+        try {
+            List<List<Graph<Location, Road>.Edge>> paths
+                = executor.shortestPaths(from, to);
+            i = 0;
+            for (String key : legs.keySet()) {
+                routes.put(key, (ArrayList<Graph<Location, Road>.Edge>)
+                           paths.get(i));
+                i += 1;
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /** Returns the key under which the leg from START1 to END1 is kept
+     *  in routes.  Location names contain no blanks. */
+    static String legKey(String start1, String end1) {
+        return start1 + " " + end1;
+    }
+
+    /** Returns a shortest path from the location named START1 to the one
+     *  named END1, or null if there is none. */
+    static ArrayList<Graph<Location, Road>.Edge> route(String start1,
+                                                     String end1) {
+        Graph<Location, Road>.Vertex start = concreteV.get(start1);
+        Graph<Location, Road>.Vertex end = concreteV.get(end1);
+        if (hierarchy != null) {
+            return (ArrayList<Graph<Location, Road>.Edge>)
+                hierarchy.shortestPath(compact.id(start), compact.id(end));
+        } else {
+            return (ArrayList<Graph<Location, Road>.Edge>)
+                Graphs.bidirectionalPath(compact, compact.id(start),
+                compact.id(end), CROWFLYER, CONTEXTS.get());
+        }
+    }
+
     /** Calculates how many times trip planning is supposed to be done.
-     *  Takes in the parameters START1 and END1. */
+     *  Takes in the parameters START1 and END1.  The route comes from
+     *  routes if it is cached there. */
     static void running(String start1, String end1) {
-        Graph<String, String>.Vertex start = concreteV.get(start1);
-        Graph<String, String>.Vertex end = concreteV.get(end1);
-        ArrayList<Graph<String, String>.Edge> bestPath
-            = (ArrayList<Graph<String, String>.Edge>)
-                Graphs.shortestPath(world, start, end,
-                CROWFLYER, VERTEX, EDGE);
+        Graph<Location, Road>.Vertex end = concreteV.get(end1);
+        String key = legKey(start1, end1);
+        ArrayList<Graph<Location, Road>.Edge> bestPath = routes.get(key);
+        if (bestPath == null) {
+            bestPath = route(start1, end1);
+            routes.put(key, bestPath);
+        }
         tripPlanner(bestPath);
         printFooter(end);
     }
@@ -178,20 +324,20 @@ public final class Main {
 
     /** Prints the end according to the vertex. Takes in the
      *  vertex INPUT. */
-    static void printFooter(Graph<String, String>.Vertex input) {
-        String title = input.getLabel();
+    static void printFooter(Graph<Location, Road>.Vertex input) {
+        String title = input.getLabel().name();
         System.out.print(" to " + title + "." + "\n");
     }
 
     /** Function helps to analyze the ArrayList and print the paths. Takes in
      *  the path BESTPATH. */
-    static void tripPlanner(ArrayList<Graph<String, String>.Edge> bestPath) {
-        Iterator<Graph<String, String>.Edge> iterator = bestPath.iterator();
-        Graph<String, String>.Edge first;
+    static void tripPlanner(ArrayList<Graph<Location, Road>.Edge> bestPath) {
+        Iterator<Graph<Location, Road>.Edge> iterator = bestPath.iterator();
+        Graph<Location, Road>.Edge first;
         first = iterator.next();
         current = first;
         while (iterator.hasNext()) {
-            Graph<String, String>.Edge second;
+            Graph<Location, Road>.Edge second;
             second = iterator.next();
             if (verifySimilar(first, second)) {
                 sameTrip(first, second);
@@ -213,17 +359,15 @@ public final class Main {
 
     /** Checks if the edges are similar. Takes in the the edge
      *  FIRST and SECOND and returns a boolean. */
-    static boolean verifySimilar(Graph<String, String>.Edge first,
-                                Graph<String, String>.Edge second) {
-        Graph<String, String>.Edge tmp1 = concreteE.get(first.getLabel());
-        String[] firstInfo = eR.get(tmp1);
-        Graph<String, String>.Edge tmp2 = concreteE.get(second.getLabel());
-        String[] secondInfo = eR.get(tmp2);
-        String[] firstLabel = first.getLabel().split("\\s+");
-        String[] secondLabel = second.getLabel().split("\\s+");
-        if (firstLabel[0].equals(secondLabel[0])) {
-            if (firstInfo[1].equals(secondInfo[1])
-                    || firstInfo[1].equals(opposite(secondInfo[1]))) {
+    static boolean verifySimilar(Graph<Location, Road>.Edge first,
+                                Graph<Location, Road>.Edge second) {
+        Road firstRoad = first.getLabel();
+        Road secondRoad = second.getLabel();
+        if (firstRoad.name().equals(secondRoad.name())) {
+            String firstDir = firstRoad.direction();
+            String secondDir = secondRoad.direction();
+            if (firstDir.equals(secondDir)
+                    || firstDir.equals(opposite(secondDir))) {
                 return true;
             }
         }
@@ -233,14 +377,10 @@ public final class Main {
 
     /** Helps to add up the distance so it can be set up for printing. Takes
      *  in the edges FIRST and SECOND. */
-    static void sameTrip(Graph<String, String>.Edge first,
-                        Graph<String, String>.Edge second) {
-        Graph<String, String>.Edge first1 = concreteE.get(first.getLabel());
-        String[] firstInfo = eR.get(first1);
-        Graph<String, String>.Edge second2 = concreteE.get(second.getLabel());
-        String[] secondInfo = eR.get(second2);
-        double tmp1 = Double.parseDouble(firstInfo[0]);
-        double tmp2 = Double.parseDouble(secondInfo[0]);
+    static void sameTrip(Graph<Location, Road>.Edge first,
+                        Graph<Location, Road>.Edge second) {
+        double tmp1 = first.getLabel().length();
+        double tmp2 = second.getLabel().length();
         if (total == 0.0) {
             total += tmp1 + tmp2;
         } else {
@@ -251,24 +391,22 @@ public final class Main {
     /** Helps to build string necessary to be print.
      *  @param: an edge, INPUT.
      *  @return: Returns the actual string. */
-    static String stringBuilder(Graph<String, String>.Edge input) {
+    static String stringBuilder(Graph<Location, Road>.Edge input) {
         String beforebegin = Integer.toString(count);
         count++;
         String begin = "Take";
-        Graph<String, String>.Edge tmp = concreteE.get(input.getLabel());
-        String[] firstInfo = eR.get(tmp);
-        String[] firstLabel = input.getLabel().split("\\s+");
-        String next1 = firstLabel[0];
+        Road road = input.getLabel();
+        String next1 = road.name();
         String next2;
-        if (eR.containsKey(input)) {
-            next2 = actualD(firstInfo[1]);
+        if (!road.isReversed()) {
+            next2 = actualD(road.direction());
         } else {
-            next2 = nuhuh(actualD(firstInfo[1]));
+            next2 = nuhuh(actualD(road.direction()));
         }
         String next3 = "for";
         String next4;
         if (total == 0.0) {
-            total += Double.parseDouble(firstInfo[0]);
+            total += road.length();
             total = round(total, 1);
             next4 = Double.toString(total);
         } else {
@@ -338,13 +476,8 @@ public final class Main {
     static void processVert(String line) {
         String[] hold = line.split("\\s+");
         if (hold.length == 4) {
-            String label = hold[1];
-            double[] coor = new double[2];
-            coor[0] = Double.parseDouble(hold[2]);
-            coor[1] = Double.parseDouble(hold[3]);
-            Graph<String, String>.Vertex tmp = world.add(label);
-            vR.put(tmp, coor);
-            concreteV.put(label, tmp);
+            addLocation(hold[1], Double.parseDouble(hold[2]),
+                        Double.parseDouble(hold[3]));
         } else {
             System.out.println("incorrect input for vertex");
             System.exit(0);
@@ -357,76 +490,122 @@ public final class Main {
     static void processEdge(String line) {
         String[] hold = line.split("\\s+");
         if (hold.length == 6) {
-            String label = hold[2] + " " + hold[1]
-                            + " " + hold[3] + " " + hold[5];
-            String[] dir = new String[2];
-            dir[0] = hold[3];
-            dir[1] = hold[4];
-            Graph<String, String>.Vertex tmp
-                = concreteV.get(hold[1]);
-            Graph<String, String>.Vertex tmp1
-                = concreteV.get(hold[5]);
-            Graph<String, String>.Edge tmpE = world.add(tmp, tmp1, label);
-            Graph<String, String>.Edge othertmpE = world.add(tmp1, tmp, label);
-            eR.put(tmpE, dir);
-            concreteE.put(label, tmpE);
+            addRoad(hold[2], hold[1], hold[3], hold[4], hold[5]);
         }
     }
 
+    /** Forgets the map and everything planned over it. */
+    static void clearMap() {
+        world = new DirectedGraph<Location, Road>();
+        concreteV.clear();
+        places = null;
+        compact = null;
+        hierarchy = null;
+        routes.clear();
+    }
 
-    /** Weighting that weighs the edges for
-     *  Integers. */
-    public static final Weighting<String> EDGE =
-        new Weighting<String>() {
+    /** Adds the location named LABEL at (X, Y) to the map. */
+    static void addLocation(String label, double x, double y) {
+        Graph<Location, Road>.Vertex tmp
+            = world.add(new Location(label, x, y));
+        concreteV.put(label, tmp);
+        places = null;
+    }
 
-            @Override
-            public double weight(String x) {
-                Graph<String, String>.Edge process = concreteE.get(x);
-                String[] info = eR.get(process);
-                try {
-                    double value = Double.parseDouble(info[0]);
-                    return value;
-                } catch (NumberFormatException e) {
-                    System.out.println("bad value for edge");
-                    System.exit(1);
-                }
-                return 0.0;
+    /** Adds the road NAME, of length LENGTH, running in direction DIR
+     *  from the location named FROM to the one named TO, to the map,
+     *  along with its reverse. */
+    static void addRoad(String name, String from, String length, String dir,
+                        String to) {
+        double value = 0.0;
+        try {
+            value = Double.parseDouble(length);
+        } catch (NumberFormatException e) {
+            System.out.println("bad value for edge");
+            System.exit(1);
+        }
+        Road road = new Road(name, value, dir, false);
+        Graph<Location, Road>.Vertex tmp
+            = concreteV.get(from);
+        Graph<Location, Road>.Vertex tmp1
+            = concreteV.get(to);
+        world.add(tmp, tmp1, road);
+        world.add(tmp1, tmp, road.reverse());
+    }
+
+    /** Adds the locations and roads of the compiled map COMPILED to the
+     *  map, which must be empty, and makes compact from its edge
+     *  arrays as they are. */
+    static void addMap(BinaryMap compiled) {
+        ArrayList<Graph<Location, Road>.Vertex> vertices
+            = new ArrayList<Graph<Location, Road>.Vertex>();
+        for (int i = 0; i < compiled.locations(); i += 1) {
+            Location loc = compiled.location(i);
+            Graph<Location, Road>.Vertex v = world.add(loc);
+            concreteV.put(loc.name(), v);
+            vertices.add(v);
+        }
+        places = null;
+        int[] offsets = compiled.offsets(), targets = compiled.targets();
+        for (int i = 0; i < vertices.size(); i += 1) {
+            for (int k = offsets[i]; k < offsets[i + 1]; k += 1) {
+                world.add(vertices.get(i), vertices.get(targets[k]),
+                          compiled.road(k));
             }
-        };
+        }
+        compact = new CompactGraph<Location, Road>(world, offsets, targets,
+                                                   compiled.weights());
+    }
 
-    /** Weighter that weights the vertices for Integers. */
-    public static final Weighter<String> VERTEX =
-        new Weighter<String>() {
-            private HashMap<String, Double> weights
-                = new HashMap<String, Double>();
+    /** Adds the records it receives to the map. */
+    static final MapSink MAP = new MapSink() {
+            @Override
+            public void location(String name, double x, double y) {
+                addLocation(name, x, y);
+            }
 
             @Override
-            public double weight(String x) {
-                return weights.get(x);
+            public void road(String name, String from, String length,
+                             String dir, String to) {
+                addRoad(name, from, length, dir, to);
             }
+        };
+
+    /** Weighting that weighs each road by its length. */
+    public static final Weighting<Road> EDGE =
+        new Weighting<Road>() {
 
             @Override
-            public void setWeight(String x, double v) {
-                weights.put(x, v);
+            public double weight(Road x) {
+                return x.length();
             }
         };
 
     /** Distancer that calculates the heuristic for the shortest path. */
-    public static final Distancer<String> CROWFLYER =
-        new Distancer<String>() {
+    public static final Distancer<Location> CROWFLYER =
+        new Distancer<Location>() {
             double distance(double x1, double y1, double x2, double y2) {
                 return Math.sqrt((x1 - x2) * (x1 - x2)
                     + (y1 - y2) * (y1 - y2));
             }
 
             @Override
-            public double dist(String v0, String v1) {
-                Graph<String, String>.Vertex first = concreteV.get(v0);
-                Graph<String, String>.Vertex second = concreteV.get(v1);
-                double[] firstValue = vR.get(first);
-                double[] secondValue = vR.get(second);
-                return distance(firstValue[0], firstValue[1],
-                    secondValue[0], secondValue[1]);
+            public double dist(Location v0, Location v1) {
+                return distance(v0.x(), v0.y(), v1.x(), v1.y());
+            }
+        };
+
+    /** Locator that places each location at its coordinates. */
+    public static final Locator<Location> POSITION =
+        new Locator<Location>() {
+            @Override
+            public double x(Location v) {
+                return v.x();
+            }
+
+            @Override
+            public double y(Location v) {
+                return v.y();
             }
         };
 
@@ -446,27 +625,51 @@ public final class Main {
         = new ArrayList<String>();
 
     /** Current Edge which is similar. */
-    private static Graph<String, String>.Edge current;
-
-    /** HashMap to store Vertices and their given coordinates. */
-    private static HashMap<Graph<String, String>.Vertex, double[]> vR
-        = new HashMap<Graph<String, String>.Vertex, double[]>();
-
-    /** HashMap to store Edges and their given statuses. */
-    private static HashMap<Graph<String, String>.Edge, String[]> eR
-        = new HashMap<Graph<String, String>.Edge, String[]>();
+    private static Graph<Location, Road>.Edge current;
 
     /** HashMap to store Labels and their respective Vertices. */
-    private static HashMap<String, Graph<String, String>.Vertex> concreteV
-        = new HashMap<String, Graph<String, String>.Vertex>();
+    private static HashMap<String, Graph<Location, Road>.Vertex> concreteV
+        = new HashMap<String, Graph<Location, Road>.Vertex>();
 
-    /** HashMap to store Labels and their respective Edges. */
-    private static HashMap<String, Graph<String, String>.Edge> concreteE
-        = new HashMap<String, Graph<String, String>.Edge>();
+    /** Spatial index of the named locations in world, or null if it
+     *  has not been built since world last changed. */
+    private static KdTree<Location> places;
 
     /** DirectedGraph that provides a graph to be built by the
      *  trip file. */
-    private static DirectedGraph<String, String> world
-        = new DirectedGraph<String, String>();
+    private static DirectedGraph<Location, Road> world
+        = new DirectedGraph<Location, Road>();
+
+    /** Read-only copy of world, made once the map is loaded, that
+     *  the trip queries are answered from. */
+    private static CompactGraph<Location, Road> compact;
+
+    /** True iff trips are to be planned with a contraction hierarchy. */
+    private static boolean contract;
+
+    /** Contraction hierarchy over compact, when contract is true. */
+    private static ContractionHierarchy<Location, Road> hierarchy;
+
+    /** Each planning thread's search state. */
+    private static final ThreadLocal<SearchContext<Location, Road>> CONTEXTS
+        = new ThreadLocal<SearchContext<Location, Road>>() {
+            @Override
+            protected SearchContext<Location, Road> initialValue() {
+                return new SearchContext<Location, Road>();
+            }
+        };
+
+    /** Number of legs to plan at once. */
+    private static int threads = 1;
+
+    /** Most routes kept in routes. */
+    static final int ROUTE_CACHE_SIZE = 1 << 14;
+
+    /** Most edges kept in routes, over all its routes. */
+    static final long ROUTE_CACHE_EDGES = 1 << 22;
+
+    /** Paths already planned, keyed by legKey. */
+    private static RouteCache routes
+        = new RouteCache(ROUTE_CACHE_SIZE, ROUTE_CACHE_EDGES);
 
 }
@@ -5,6 +5,15 @@ import static org.junit.Assert.*;
 import java.lang.reflect.Field;
 import graph.Graph.Vertex;
 import graph.DirectedGraph;
+import graph.CompactGraph;
+import graph.Graph;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 
 public class MainTest {
 
@@ -49,9 +58,9 @@ public class MainTest {
     @SuppressWarnings("unchecked")
     public void headingAndFooterTest() {
         Main.printHeader("test");
-        DirectedGraph<String, String> g
-            = new DirectedGraph<String, String>();
-        Vertex v0 = g.add("test");
+        DirectedGraph<Location, Road> g
+            = new DirectedGraph<Location, Road>();
+        Vertex v0 = g.add(new Location("test", 0, 0));
         Main.printFooter(v0);
     }
 
@@ -94,4 +103,216 @@ public class MainTest {
         assertEquals("west", s2);
         assertEquals("east", s3);
     }
+
+    /** Checks that plan routes each distinct leg once, in parallel. */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void planTest() throws ReflectiveOperationException {
+        Main.processVert("L A 0 0");
+        Main.processVert("L B 0 1");
+        Main.processVert("L C 1 1");
+        Main.processEdge("R A Main 1.0 SN B");
+        Main.processEdge("R B Elm 1.0 WE C");
+        fieldSetup("world", null);
+        Field compact = Main.class.getDeclaredField("compact");
+        compact.setAccessible(true);
+        compact.set(null, new CompactGraph<Location, Road>(
+            (DirectedGraph<Location, Road>) value, Main.EDGE));
+        Field threads = Main.class.getDeclaredField("threads");
+        threads.setAccessible(true);
+        threads.set(null, 2);
+        fieldSetup("directions", null);
+        ArrayList<String> directions = (ArrayList<String>) value;
+        directions.add("A, C");
+        directions.add("C, A, B, C");
+        Main.plan();
+        fieldSetup("routes", null);
+        RouteCache routes = (RouteCache) value;
+        assertEquals(4, routes.size());
+        assertEquals(2, routes.get(Main.legKey("A", "C")).size());
+        assertEquals(1, routes.get(Main.legKey("B", "C")).size());
+        threads.set(null, 1);
+        directions.clear();
+    }
+
+    /** Checks that MapLoader reads records across line terminators,
+     *  blanks and short reads as processVert and processEdge would, into
+     *  Location and Road labels. */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void loaderTest() throws IOException {
+        StringBuilder longName = new StringBuilder("Q");
+        for (int i = 0; i < 100000; i += 1) {
+            longName.append('q');
+        }
+        String map = "L P 1.5 -2\r\nL " + longName + " 1e1 +3.25\n\n"
+            + "L\tZ  0.1 .30\rR P Oak 2.5 WE " + longName + "\r\n"
+            + "R Z Pine 1.0 SN P";
+        final ByteArrayInputStream bytes
+            = new ByteArrayInputStream(map.getBytes("UTF-8"));
+        InputStream trickle = new InputStream() {
+            @Override
+            public int read() {
+                return bytes.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                return bytes.read(b, off, Math.min(len, 3));
+            }
+        };
+        new MapLoader(trickle).load();
+        fieldSetup("concreteV", null);
+        HashMap<String, Graph<Location, Road>.Vertex> names
+            = (HashMap<String, Graph<Location, Road>.Vertex>) value;
+        Location p = names.get("P").getLabel();
+        Location q = names.get(longName.toString()).getLabel();
+        Location z = names.get("Z").getLabel();
+        assertEquals(1.5, p.x(), 0);
+        assertEquals(-2, p.y(), 0);
+        assertEquals(10, q.x(), 0);
+        assertEquals(3.25, q.y(), 0);
+        assertEquals(0.1, z.x(), 0);
+        assertEquals(0.3, z.y(), 0);
+        fieldSetup("world", null);
+        DirectedGraph<Location, Road> world
+            = (DirectedGraph<Location, Road>) value;
+        Road oak = world.outEdges(names.get("P")).next().getLabel();
+        assertEquals("Oak", oak.name());
+        assertEquals(2.5, oak.length(), 0);
+        assertEquals("WE", oak.direction());
+        assertFalse(oak.isReversed());
+    }
+
+    /** Returns the locations and edges of compact, in order, as
+     *  text. */
+    @SuppressWarnings("unchecked")
+    String describeCompact() {
+        fieldSetup("compact", null);
+        CompactGraph<Location, Road> compact
+            = (CompactGraph<Location, Road>) value;
+        StringBuilder result = new StringBuilder();
+        for (int v = 0; v < compact.vertexSize(); v += 1) {
+            Location loc = compact.label(v);
+            result.append("L " + loc.name() + " " + loc.x() + " "
+                          + loc.y() + "\n");
+            for (int k = compact.firstOut(v); k < compact.endOut(v);
+                 k += 1) {
+                Road road = compact.edge(k).getLabel();
+                result.append("  " + compact.target(k) + " "
+                              + compact.weight(k) + " " + road.name()
+                              + " " + road.length() + " "
+                              + road.direction() + " "
+                              + road.isReversed() + "\n");
+            }
+        }
+        return result.toString();
+    }
+
+    /** Checks that a compiled map loads as the same graph, numbered and
+     *  ordered the same way, as its text, including a location named
+     *  twice and a road from a location to itself. */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void binaryMapTest()
+        throws IOException, ReflectiveOperationException {
+        String map = "L A 0 0\nL B 0 1.25\nL C -1e2 1\n"
+            + "R A Main 1.0 SN B\nR B Elm 2.5 WE C\nR C Main 1.0 EW A\n"
+            + "L B 5 5\nR B Oak 3 NS B\nR A Pine 2 SN B\n";
+        Main.clearMap();
+        new MapLoader(new ByteArrayInputStream(map.getBytes("UTF-8")))
+            .load();
+        fieldSetup("world", null);
+        Field compact = Main.class.getDeclaredField("compact");
+        compact.setAccessible(true);
+        compact.set(null, new CompactGraph<Location, Road>(
+            (DirectedGraph<Location, Road>) value, Main.EDGE));
+        String text = describeCompact();
+
+        BinaryMap compiled = new BinaryMap();
+        new MapLoader(new ByteArrayInputStream(map.getBytes("UTF-8")),
+                      compiled).load();
+        File file = File.createTempFile("trip", ".map");
+        try {
+            FileOutputStream out = new FileOutputStream(file);
+            compiled.write(out);
+            out.close();
+            assertTrue(BinaryMap.isCompiled(file));
+            Main.clearMap();
+            Main.addMap(BinaryMap.load(file));
+            assertEquals(text, describeCompact());
+            fieldSetup("concreteV", null);
+            HashMap<String, Graph<Location, Road>.Vertex> names
+                = (HashMap<String, Graph<Location, Road>.Vertex>) value;
+            assertEquals(5.0, names.get("B").getLabel().x(), 0);
+        } finally {
+            file.delete();
+            Main.clearMap();
+        }
+    }
+
+    /** Checks that locations given by coordinates snap to the nearest
+     *  location in the map. */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void snapTest() {
+        Main.processVert("L Far1 1000 1000");
+        Main.processVert("L Far2 1010 1000");
+        assertEquals("Far2", Main.snap("@1009,1001"));
+        assertEquals("Far1", Main.snap("@1004.9,1000"));
+        assertEquals("Far1", Main.snap("Far1"));
+        assertEquals("@1004", Main.snap("@1004"));
+        assertEquals("@a,b", Main.snap("@a,b"));
+        fieldSetup("directions", null);
+        ArrayList<String> directions = (ArrayList<String>) value;
+        directions.add("@1001,999 @2000,1000");
+        Main.snapRequests();
+        assertEquals("Far1, Far2", directions.get(0));
+        directions.clear();
+    }
+
+    /** Checks that RouteCache evicts the least recently used routes,
+     *  keeps none longer than itself, and counts hits and misses. */
+    @Test
+    public void routeCacheTest() {
+        RouteCache cache = new RouteCache(3, 10);
+        ArrayList<Graph<Location, Road>.Edge> one
+            = new ArrayList<Graph<Location, Road>.Edge>();
+        one.add(null);
+        ArrayList<Graph<Location, Road>.Edge> six
+            = new ArrayList<Graph<Location, Road>.Edge>();
+        for (int i = 0; i < 6; i += 1) {
+            six.add(null);
+        }
+        cache.put("a", one);
+        cache.put("b", one);
+        cache.put("c", one);
+        cache.put("none", null);
+        assertFalse(cache.containsKey("none"));
+        assertSame(one, cache.get("a"));
+        cache.put("d", one);
+        assertFalse(cache.containsKey("b"));
+        assertTrue(cache.containsKey("a"));
+        assertEquals(3, cache.size());
+        cache.put("e", six);
+        assertEquals(3, cache.size());
+        assertEquals(8, cache.edges());
+        cache.put("f", six);
+        assertEquals(1, cache.size());
+        assertEquals(6, cache.edges());
+        assertEquals(null, cache.get("a"));
+        assertSame(six, cache.get("f"));
+        ArrayList<Graph<Location, Road>.Edge> eleven
+            = new ArrayList<Graph<Location, Road>.Edge>(six);
+        eleven.addAll(six.subList(0, 5));
+        cache.put("g", eleven);
+        assertFalse(cache.containsKey("g"));
+        assertEquals(1, cache.size());
+        assertEquals(6, cache.edges());
+        assertEquals(2, cache.hits());
+        assertEquals(1, cache.misses());
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.edges());
+    }
 }
@@ -0,0 +1,48 @@
+package trip;
+
+import java.io.BufferedOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/** Compiles a text trip map into the binary form that trip.Main loads
+ *  without parsing (see BinaryMap).
+ *  @author Felix Liu
+ */
+public final class MapCompiler {
+
+    /** Entry point for the map compiler.  ARGS are
+     *      MAP COMPILED
+     *  where MAP is a text map as trip reads it and COMPILED is the file
+     *  to write its compiled form to.  COMPILED may then be given to
+     *  trip's -m option in place of MAP.
+     */
+    public static void main(String... args) {
+        if (args.length != 2) {
+            System.err.println("Usage: java trip.MapCompiler MAP COMPILED");
+            System.exit(1);
+        }
+        BinaryMap compiled = new BinaryMap();
+        try {
+            InputStream in = new FileInputStream(args[0]);
+            try {
+                new MapLoader(in, compiled).load();
+            } finally {
+                in.close();
+            }
+            OutputStream out =
+                new BufferedOutputStream(new FileOutputStream(args[1]));
+            try {
+                compiled.write(out);
+            } finally {
+                out.close();
+            }
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+
+}
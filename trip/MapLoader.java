@@ -0,0 +1,225 @@
+package trip;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/** Reads the L and R records of a trip map from a byte stream and
+ *  hands them to a MapSink, by default Main's map.  A line is split
+ *  into fields in place in my buffer and coordinates are converted
+ *  straight from its bytes, so that the only objects made per record
+ *  are the Strings that the map keeps.  Lines
+ *  are accepted and rejected exactly as Main.processVert and
+ *  Main.processEdge would accept and reject them.
+ *  @author Felix Liu
+ */
+final class MapLoader {
+
+    /** A loader reading from IN, which it does not buffer further, into
+     *  Main's map. */
+    MapLoader(InputStream in) {
+        this(in, Main.MAP);
+    }
+
+    /** A loader reading from IN, which it does not buffer further, into
+     *  SINK. */
+    MapLoader(InputStream in, MapSink sink) {
+        _in = in;
+        _sink = sink;
+    }
+
+    /** Reads every record from my stream into my sink.  Exits, as
+     *  Main does, on a line that is not a record or a malformed L
+     *  record. */
+    void load() throws IOException {
+        while (nextLine()) {
+            if (_lineEnd == _lineStart) {
+                continue;
+            }
+            byte c = _buf[_lineStart];
+            if (c == 'L') {
+                split();
+                if (_fields == 4) {
+                    _sink.location(field(1), number(2), number(3));
+                } else {
+                    System.out.println("incorrect input for vertex");
+                    System.exit(0);
+                }
+            } else if (c == 'R') {
+                split();
+                if (_fields == 6) {
+                    _sink.road(field(2), field(1), field(3), field(4),
+                               field(5));
+                }
+            } else {
+                System.out.println("not a valid entry");
+                System.exit(0);
+            }
+        }
+    }
+
+    /** Finds the next line in the stream, setting _lineStart and
+     *  _lineEnd around it in _buf, without its terminator (one of
+     *  \n, \r or \r\n).  Returns false at the end of the stream. */
+    private boolean nextLine() throws IOException {
+        int p = _pos;
+        while (true) {
+            if (_skipNewline && p < _limit) {
+                _skipNewline = false;
+                if (_buf[p] == '\n') {
+                    p += 1;
+                    _pos = p;
+                }
+            }
+            while (p < _limit && _buf[p] != '\n' && _buf[p] != '\r') {
+                p += 1;
+            }
+            if (p < _limit) {
+                _lineStart = _pos;
+                _lineEnd = p;
+                _skipNewline = _buf[p] == '\r';
+                _pos = p + 1;
+                return true;
+            }
+            int done = p - _pos;
+            if (!fill()) {
+                _lineStart = _pos;
+                _lineEnd = _pos = _limit;
+                return done > 0;
+            }
+            p = _pos + done;
+        }
+    }
+
+    /** Moves the unread part of _buf to its front, growing it if it is
+     *  full, and reads more of the stream after it.  Returns false if
+     *  the stream is exhausted. */
+    private boolean fill() throws IOException {
+        int kept = _limit - _pos;
+        if (kept == _buf.length) {
+            _buf = Arrays.copyOf(_buf, 2 * _buf.length);
+        } else if (_pos > 0) {
+            System.arraycopy(_buf, _pos, _buf, 0, kept);
+        }
+        _pos = 0;
+        _limit = kept;
+        int n = _in.read(_buf, _limit, _buf.length - _limit);
+        if (n <= 0) {
+            return false;
+        }
+        _limit += n;
+        return true;
+    }
+
+    /** Splits the current line into fields at runs of whitespace, as
+     *  String.split("\\s+") would, recording the bounds of the first
+     *  MAX_FIELDS of them and counting them all in _fields. */
+    private void split() {
+        _fields = 0;
+        int p = _lineStart;
+        while (p < _lineEnd) {
+            while (p < _lineEnd && isBlank(_buf[p])) {
+                p += 1;
+            }
+            if (p == _lineEnd) {
+                break;
+            }
+            int start = p;
+            while (p < _lineEnd && !isBlank(_buf[p])) {
+                p += 1;
+            }
+            if (_fields < MAX_FIELDS) {
+                _start[_fields] = start;
+                _end[_fields] = p;
+            }
+            _fields += 1;
+        }
+    }
+
+    /** Returns field K of the current line. */
+    private String field(int k) {
+        return new String(_buf, _start[k], _end[k] - _start[k], CHARSET);
+    }
+
+    /** Returns field K of the current line as a double, exactly as
+     *  Double.parseDouble would.  Plain decimals of up to MAX_DIGITS
+     *  digits are converted directly: their digits and the power of ten
+     *  that scales them are both exact doubles, so one division gives
+     *  the correctly rounded result.  Anything else goes to
+     *  Double.parseDouble. */
+    private double number(int k) {
+        int p = _start[k], end = _end[k];
+        boolean negative = false;
+        if (p < end && (_buf[p] == '-' || _buf[p] == '+')) {
+            negative = _buf[p] == '-';
+            p += 1;
+        }
+        long digits = 0;
+        int count = 0, scale = 0;
+        boolean point = false;
+        for (; p < end; p += 1) {
+            byte c = _buf[p];
+            if (c >= '0' && c <= '9') {
+                digits = 10 * digits + (c - '0');
+                count += 1;
+                if (point) {
+                    scale += 1;
+                }
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+        if (p < end || count == 0 || count > MAX_DIGITS) {
+            return Double.parseDouble(field(k));
+        }
+        double result = digits / POWERS_OF_TEN[scale];
+        return negative ? -result : result;
+    }
+
+    /** Returns true iff C is one of the characters \s matches. */
+    private static boolean isBlank(byte c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == 0x0B
+            || c == '\f' || c == '\r';
+    }
+
+    /** The encoding of map files, as Scanner assumed. */
+    private static final Charset CHARSET = Charset.defaultCharset();
+    /** Most fields recorded per line; more means a malformed record. */
+    private static final int MAX_FIELDS = 7;
+    /** Most digits in a number converted without Double.parseDouble. */
+    private static final int MAX_DIGITS = 15;
+    /** Powers of ten up to 10**MAX_DIGITS, all exact. */
+    private static final double[] POWERS_OF_TEN = new double[MAX_DIGITS + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1.0;
+        for (int i = 1; i <= MAX_DIGITS; i += 1) {
+            POWERS_OF_TEN[i] = 10.0 * POWERS_OF_TEN[i - 1];
+        }
+    }
+
+    /** Source of map data. */
+    private final InputStream _in;
+    /** Receives the records. */
+    private final MapSink _sink;
+    /** Bytes read but not yet consumed lie in _buf[_pos .. _limit - 1]. */
+    private byte[] _buf = new byte[1 << 16];
+    /** Start of unconsumed data in _buf. */
+    private int _pos;
+    /** End of data in _buf. */
+    private int _limit;
+    /** True iff the last line ended in \r, so that a \n next is part of
+     *  its terminator. */
+    private boolean _skipNewline;
+    /** Bounds of the current line in _buf. */
+    private int _lineStart, _lineEnd;
+    /** Number of fields in the current line. */
+    private int _fields;
+    /** Bounds in _buf of the recorded fields of the current line. */
+    private final int[] _start = new int[MAX_FIELDS],
+        _end = new int[MAX_FIELDS];
+
+}
@@ -0,0 +1,17 @@
+package trip;
+
+/** Receives the records of a trip map in the order they appear.
+ *  @author Felix Liu
+ */
+interface MapSink {
+
+    /** Receives the L record for the location named NAME at (X, Y). */
+    void location(String name, double x, double y);
+
+    /** Receives the R record for the road NAME, whose length is given by
+     *  the text LENGTH, running in direction DIR from the location named
+     *  FROM to the one named TO. */
+    void road(String name, String from, String length, String dir,
+              String to);
+
+}
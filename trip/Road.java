@@ -0,0 +1,68 @@
+package trip;
+
+import graph.Weighted;
+
+/** A road segment on a trip map: the label of an edge of Main's map.
+ *  An R record adds two edges, one each way, labeled with a Road and
+ *  its reverse.  My weight is my length.
+ *  @author Felix Liu
+ */
+public final class Road implements Weighted {
+
+    /** The segment of the road NAME, of length LENGTH, that runs in the
+     *  direction DIRECTION of its R record ("NS", "SN", "EW" or "WE"),
+     *  traveled against that direction iff REVERSED. */
+    public Road(String name, double length, String direction,
+                boolean reversed) {
+        _name = name;
+        _length = length;
+        _direction = direction;
+        _reversed = reversed;
+    }
+
+    /** Returns the same segment traveled the other way. */
+    public Road reverse() {
+        return new Road(_name, _length, _direction, !_reversed);
+    }
+
+    /** Returns the name of my road. */
+    public String name() {
+        return _name;
+    }
+
+    /** Returns my length. */
+    public double length() {
+        return _length;
+    }
+
+    /** Returns the direction given in my R record, regardless of which
+     *  way I am traveled. */
+    public String direction() {
+        return _direction;
+    }
+
+    /** Returns true iff I am traveled against direction(). */
+    public boolean isReversed() {
+        return _reversed;
+    }
+
+    @Override
+    public double weight() {
+        return _length;
+    }
+
+    @Override
+    public String toString() {
+        return _name;
+    }
+
+    /** Name of my road. */
+    private final String _name;
+    /** My length. */
+    private final double _length;
+    /** Direction given in my R record. */
+    private final String _direction;
+    /** True iff I am traveled against _direction. */
+    private final boolean _reversed;
+
+}
@@ -0,0 +1,106 @@
+package trip;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import graph.Graph;
+
+/** A bounded cache of planned routes, keyed by Main.legKey, that
+ *  evicts the least recently used route once it holds more than a given
+ *  number of routes or of edges in all, the edges standing in for the
+ *  memory the routes take.  It counts the lookups it could answer and
+ *  those it could not.  All methods may be called from any thread.
+ *  Legs with no route are not cached.
+ *  @author Felix Liu
+ */
+final class RouteCache {
+
+    /** A cache of at most MAXROUTES routes of at most MAXEDGES edges
+     *  in all. */
+    RouteCache(int maxRoutes, long maxEdges) {
+        _maxRoutes = maxRoutes;
+        _maxEdges = maxEdges;
+    }
+
+    /** Returns the route cached for KEY, making it the most recently
+     *  used, or null if there is none.  Counts a hit or a miss. */
+    synchronized ArrayList<Graph<Location, Road>.Edge> get(String key) {
+        ArrayList<Graph<Location, Road>.Edge> path = _routes.get(key);
+        if (path == null) {
+            _misses += 1;
+        } else {
+            _hits += 1;
+        }
+        return path;
+    }
+
+    /** Returns true iff a route is cached for KEY, without counting a
+     *  lookup or changing which route was most recently used. */
+    synchronized boolean containsKey(String key) {
+        return _routes.containsKey(key);
+    }
+
+    /** Caches PATH as the route for KEY, unless it is null, evicting
+     *  the least recently used routes as needed.  A route longer than
+     *  the whole cache is not kept, and leaves the cache as it was. */
+    synchronized void put(String key,
+                          ArrayList<Graph<Location, Road>.Edge> path) {
+        if (path == null || path.size() > _maxEdges) {
+            return;
+        }
+        ArrayList<Graph<Location, Road>.Edge> old = _routes.put(key, path);
+        if (old != null) {
+            _edges -= old.size();
+        }
+        _edges += path.size();
+        Iterator<Map.Entry<String, ArrayList<Graph<Location, Road>.Edge>>>
+            eldest = _routes.entrySet().iterator();
+        while (_routes.size() > _maxRoutes || _edges > _maxEdges) {
+            _edges -= eldest.next().getValue().size();
+            eldest.remove();
+        }
+    }
+
+    /** Forgets every route, as when the map changes.  The counts of
+     *  hits and misses are kept. */
+    synchronized void clear() {
+        _routes.clear();
+        _edges = 0;
+    }
+
+    /** Returns the number of routes cached. */
+    synchronized int size() {
+        return _routes.size();
+    }
+
+    /** Returns the total number of edges in the cached routes. */
+    synchronized long edges() {
+        return _edges;
+    }
+
+    /** Returns the number of calls to get that found a route. */
+    synchronized long hits() {
+        return _hits;
+    }
+
+    /** Returns the number of calls to get that found none. */
+    synchronized long misses() {
+        return _misses;
+    }
+
+    /** Most routes kept. */
+    private final int _maxRoutes;
+    /** Most edges kept, over all routes. */
+    private final long _maxEdges;
+    /** The cached routes, least recently used first. */
+    private final LinkedHashMap<String, ArrayList<Graph<Location, Road>.Edge>>
+        _routes = new LinkedHashMap<String,
+                                    ArrayList<Graph<Location, Road>.Edge>>(
+                                        16, 0.75f, true);
+    /** Total size of the routes in _routes. */
+    private long _edges;
+    /** Lookup counts. */
+    private long _hits, _misses;
+
+}